@@ -0,0 +1,302 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.pragmatickm.task.servlet;
+
+import com.pragmatickm.task.servlet.impl.TaskImpl;
+import com.semanticcms.core.model.ElementRef;
+import com.semanticcms.core.model.PageRef;
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.ServletContext;
+
+/**
+ * An optional, application-scoped cache of {@link StatusResult}, which survives across requests.
+ *
+ * <p>Each entry is keyed by the task {@link ElementRef}, the last-modified time of both the task log XML file
+ * and the page source, and the current day.  Thus a status is computed at most once per task log change per day.
+ * Whether each "Do Before" task consulted while computing a status was completed is recorded with the entry, and the
+ * entry is only used while each of them is still cached with the same completion.  Only the direct "Do Before" tasks
+ * are checked, since whether a task is completed depends only on its own task log, page, and day, never on its own
+ * "Do Before" tasks.</p>
+ *
+ * <p>The maximum number of entries is set by the context init parameter {@link #SIZE_INIT_PARAM}, beyond which the
+ * least recently used are evicted.  Until it is set, nothing is cached.  Resources that are not directly accessible
+ * on the filesystem are never cached.</p>
+ *
+ * <p>The statuses of all tasks for a day may also be {@link Precomputed precomputed} separately, then
+ * {@link #setPrecomputed(com.pragmatickm.task.servlet.ApplicationStatusCache.Precomputed) swapped in} when the day
+ * begins.  These are consulted before the least recently used entries, and are not subject to eviction.</p>
+ */
+final class ApplicationStatusCache implements StatusStore {
+
+  /**
+   * The context init parameter that sets the maximum number of entries in the cache.
+   * When not set or {@code 0}, the cache is disabled.
+   */
+  static final String SIZE_INIT_PARAM = ApplicationStatusCache.class.getName() + ".size";
+
+  private static final String APPLICATION_ATTRIBUTE = ApplicationStatusCache.class.getName();
+
+  /**
+   * Gets the application status cache.
+   *
+   * @return  The cache or {@code null} when disabled
+   */
+  static ApplicationStatusCache getInstance(ServletContext servletContext) {
+    ApplicationStatusCache instance = (ApplicationStatusCache) servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+    if (instance == null) {
+      synchronized (ApplicationStatusCache.class) {
+        instance = (ApplicationStatusCache) servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+        if (instance == null) {
+          instance = new ApplicationStatusCache(
+              servletContext,
+              InitParameters.getNonNegativeInt(servletContext, SIZE_INIT_PARAM, 0)
+          );
+          servletContext.setAttribute(APPLICATION_ATTRIBUTE, instance);
+        }
+      }
+    }
+    return instance.maxSize == 0 ? null : instance;
+  }
+
+  /**
+   * Gets the last modified time of the file backing the given resource.
+   * When the {@link FileWatcher} is enabled, the time is only read from the filesystem once per change.
+   *
+   * @return  The last modified time, {@code 0} when the file does not exist, or {@code -1} when the resource
+   *          is not directly accessible on the filesystem.
+   */
+  static long getLastModified(ServletContext servletContext, PageRef pageRef) {
+    String realPath = servletContext.getRealPath(pageRef.getServletPath());
+    if (realPath == null) {
+      return -1;
+    }
+    FileWatcher fileWatcher = FileWatcher.getInstance(servletContext);
+    return fileWatcher == null ? new File(realPath).lastModified() : fileWatcher.getLastModified(pageRef, realPath);
+  }
+
+  /**
+   * The key for a status, which changes whenever the task log, page, or day change.
+   */
+  static final class Key {
+
+    private final ElementRef elementRef;
+    private final long taskLogLastModified;
+    private final long pageLastModified;
+    private final long today;
+
+    private Key(ElementRef elementRef, long taskLogLastModified, long pageLastModified, long today) {
+      this.elementRef = elementRef;
+      this.taskLogLastModified = taskLogLastModified;
+      this.pageLastModified = pageLastModified;
+      this.today = today;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return
+          taskLogLastModified == other.taskLogLastModified
+              && pageLastModified == other.pageLastModified
+              && today == other.today
+              && elementRef.equals(other.elementRef);
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = elementRef.hashCode();
+      hash = hash * 31 + Long.hashCode(taskLogLastModified);
+      hash = hash * 31 + Long.hashCode(pageLastModified);
+      return hash * 31 + Long.hashCode(today);
+    }
+  }
+
+  private static final class CachedStatus {
+
+    private final StatusResult status;
+    private final ElementRef[] doBeforeRefs;
+    private final boolean[] doBeforeCompleted;
+
+    private CachedStatus(StatusResult status, Map<ElementRef, StatusResult> doBefores) {
+      this.status = status;
+      int size = doBefores.size();
+      this.doBeforeRefs = new ElementRef[size];
+      this.doBeforeCompleted = new boolean[size];
+      int i = 0;
+      for (Map.Entry<ElementRef, StatusResult> doBefore : doBefores.entrySet()) {
+        doBeforeRefs[i] = doBefore.getKey();
+        doBeforeCompleted[i] = doBefore.getValue().isCompletedSchedule();
+        i++;
+      }
+    }
+  }
+
+  /**
+   * The statuses of all tasks for a single day, computed ahead of the day.  Once
+   * {@link #setPrecomputed(com.pragmatickm.task.servlet.ApplicationStatusCache.Precomputed) swapped in}, it must not
+   * be modified.
+   */
+  final class Precomputed implements StatusStore {
+
+    private final long day;
+    private final Map<Key, CachedStatus> precomputedEntries = new HashMap<>();
+
+    private Precomputed(long day) {
+      this.day = day;
+    }
+
+    @Override
+    public Key getKey(ElementRef elementRef, long today) {
+      return ApplicationStatusCache.this.getKey(elementRef, today);
+    }
+
+    @Override
+    public StatusResult get(Key key) {
+      CachedStatus entry = precomputedEntries.get(key);
+      return entry == null ? null : entry.status;
+    }
+
+    @Override
+    public void put(Key key, StatusResult status, Map<ElementRef, StatusResult> doBefores) {
+      if (key.today != day) {
+        throw new IllegalArgumentException("Precomputing " + EpochDay.format(day) + ", got " + EpochDay.format(key.today));
+      }
+      precomputedEntries.put(key, new CachedStatus(status, doBefores));
+    }
+  }
+
+  private final ServletContext servletContext;
+  private final int maxSize;
+  private final Map<Key, CachedStatus> entries;
+
+  /**
+   * The statuses precomputed for the current day, if any.
+   */
+  private volatile Precomputed precomputed;
+
+  private ApplicationStatusCache(ServletContext servletContext, int maxSize) {
+    this.servletContext = servletContext;
+    this.maxSize = maxSize;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, CachedStatus> eldest) {
+        return size() > ApplicationStatusCache.this.maxSize;
+      }
+    };
+  }
+
+  /**
+   * Creates an empty set of statuses to precompute for the given day.
+   */
+  Precomputed newPrecomputed(long day) {
+    return new Precomputed(day);
+  }
+
+  /**
+   * Swaps in the statuses precomputed for a day, replacing those of any previous day.
+   */
+  void setPrecomputed(Precomputed precomputed) {
+    this.precomputed = precomputed;
+  }
+
+  @Override
+  public Key getKey(ElementRef elementRef, long today) {
+    PageRef pageRef = elementRef.getPageRef();
+    long pageLastModified = getLastModified(servletContext, pageRef);
+    if (pageLastModified == -1) {
+      return null;
+    }
+    long taskLogLastModified = getLastModified(servletContext, TaskImpl.getTaskLogXmlFile(pageRef, elementRef.getId()));
+    if (taskLogLastModified == -1) {
+      return null;
+    }
+    return new Key(elementRef, taskLogLastModified, pageLastModified, today);
+  }
+
+  private CachedStatus getEntry(Key key) {
+    Precomputed p = precomputed;
+    if (p != null && p.day == key.today) {
+      CachedStatus entry = p.precomputedEntries.get(key);
+      if (entry != null) {
+        return entry;
+      }
+    }
+    synchronized (entries) {
+      return entries.get(key);
+    }
+  }
+
+  /**
+   * Gets a cached status, only when all "Do Before" tasks that it depends on are also still cached with the same
+   * completion.
+   *
+   * @return  The status or {@code null} when not cached or no longer valid
+   */
+  @Override
+  public StatusResult get(Key key) {
+    CachedStatus entry = getEntry(key);
+    if (entry == null) {
+      return null;
+    }
+    return isValid(entry, key.today) ? entry.status : null;
+  }
+
+  /**
+   * Checks that all the direct "Do Before" tasks an entry depends on are still cached with the same completion.
+   * The "Do Before" tasks of those tasks need not be checked, since they do not affect completion.
+   */
+  private boolean isValid(CachedStatus entry, long today) {
+    for (int i = 0, size = entry.doBeforeRefs.length; i < size; i++) {
+      Key doBeforeKey = getKey(entry.doBeforeRefs[i], today);
+      if (doBeforeKey == null) {
+        return false;
+      }
+      CachedStatus doBeforeEntry = getEntry(doBeforeKey);
+      if (doBeforeEntry == null || doBeforeEntry.status.isCompletedSchedule() != entry.doBeforeCompleted[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Caches a status.
+   *
+   * @param  doBefores  The statuses of all "Do Before" tasks consulted in computing the status.
+   */
+  @Override
+  public void put(Key key, StatusResult status, Map<ElementRef, StatusResult> doBefores) {
+    CachedStatus entry = new CachedStatus(status, doBefores);
+    synchronized (entries) {
+      entries.put(key, entry);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.pragmatickm.task.servlet;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+/**
+ * Converts between {@link Calendar} dates and the number of days since 1970-01-01, which allows dates to be
+ * compared as primitive values without allocation.
+ *
+ * <p>Only the default time zone is supported.  The dates of tasks and task logs are calendars in the default time
+ * zone, and days are converted back to calendars in the same zone, so the current day is also taken in the default
+ * time zone.</p>
+ */
+final class EpochDay {
+
+  /** Make no instances. */
+  private EpochDay() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Indicates no date.  This is less than all dates.
+   */
+  static final long NONE = Long.MIN_VALUE;
+
+  /**
+   * Gets the epoch day for the given year, month (1-12), and day of month.
+   */
+  static long of(int year, int month, int dayOfMonth) {
+    // Days from civil, with years starting in March
+    long y = month <= 2 ? (year - 1L) : year;
+    long era = Math.floorDiv(y, 400);
+    long yearOfEra = y - era * 400;
+    int monthFromMarch = (month + 9) % 12;
+    long dayOfYear = (153 * monthFromMarch + 2) / 5 + dayOfMonth - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  /**
+   * Gets the epoch day for the date of the given calendar, in its time zone.
+   *
+   * @return  The epoch day or {@link #NONE} when {@code date} is {@code null}
+   */
+  static long of(Calendar date) {
+    if (date == null) {
+      return NONE;
+    }
+    return of(
+        date.get(Calendar.YEAR),
+        date.get(Calendar.MONTH) + 1,
+        date.get(Calendar.DAY_OF_MONTH)
+    );
+  }
+
+  /**
+   * Gets the epoch day of the current day of the given clock, in the default time zone.
+   * Only the instant of the clock is used, not its zone.
+   */
+  static long today(Clock clock) {
+    return clock.instant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+  }
+
+  /**
+   * Gets a new calendar at the start of the given day in the default time zone.
+   *
+   * @return  The calendar or {@code null} when {@code epochDay} is {@link #NONE}
+   */
+  static GregorianCalendar toCalendar(long epochDay) {
+    if (epochDay == NONE) {
+      return null;
+    }
+    LocalDate date = LocalDate.ofEpochDay(epochDay);
+    return new GregorianCalendar(date.getYear(), date.getMonthValue() - 1, date.getDayOfMonth());
+  }
+
+  /**
+   * Formats the given day as YYYY-MM-DD.
+   */
+  static String format(long epochDay) {
+    return LocalDate.ofEpochDay(epochDay).toString();
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.pragmatickm.task.servlet;
+
+import com.pragmatickm.task.servlet.impl.TaskImpl;
+import com.semanticcms.core.model.PageRef;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Watches the directories of task logs and pages for changes, so the last modified times used to validate the
+ * {@link TaskLogCache}, {@link ApplicationStatusCache}, and {@link TaskIndex} are read from memory instead of the
+ * filesystem on every access.
+ *
+ * <p>The last modified time of each file is read once, and its directory registered with a {@link WatchService}.
+ * When the directory cannot be registered, the time is read from the filesystem on every access instead.
+ * Any change to the file discards the recorded time and evicts its task log from the {@link TaskLogCache}.  As the
+ * cached statuses are keyed by the last modified times, the statuses of the task and all tasks depending on it are
+ * recomputed on next access.  The directories holding task logs are registered on start-up.</p>
+ *
+ * <p>Watching starts only when the context init parameter {@link #ENABLED_INIT_PARAM} is {@code true}.  It should only
+ * be enabled where the filesystem reliably delivers change events, as a missed event leaves a stale time until the
+ * application is restarted.</p>
+ */
+@WebListener("Watches the directories of task logs and pages for changes.")
+public final class FileWatcher implements ServletContextListener {
+
+  private static final Logger logger = Logger.getLogger(FileWatcher.class.getName());
+
+  /**
+   * The context init parameter that enables watching for file changes.
+   */
+  public static final String ENABLED_INIT_PARAM = FileWatcher.class.getName() + ".enabled";
+
+  private static final String APPLICATION_ATTRIBUTE = FileWatcher.class.getName();
+
+  /**
+   * Gets the file watcher.
+   *
+   * @return  The watcher or {@code null} when disabled
+   */
+  static FileWatcher getInstance(ServletContext servletContext) {
+    return (FileWatcher) servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+  }
+
+  private volatile ServletContext servletContext;
+  private volatile WatchService watchService;
+
+  /**
+   * The last modified time of each file read.
+   */
+  private final ConcurrentMap<Path, Long> lastModifieds = new ConcurrentHashMap<>();
+
+  /**
+   * The task log of each task log file read, used to evict the task log on change.
+   */
+  private final ConcurrentMap<Path, PageRef> taskLogs = new ConcurrentHashMap<>();
+
+  /**
+   * The directory of each registered key.
+   */
+  private final ConcurrentMap<WatchKey, Path> directories = new ConcurrentHashMap<>();
+
+  /**
+   * The directories currently registered.
+   */
+  private final Set<Path> registered = ConcurrentHashMap.newKeySet();
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    servletContext = event.getServletContext();
+    if (InitParameters.getBoolean(servletContext, ENABLED_INIT_PARAM)) {
+      try {
+        watchService = FileSystems.getDefault().newWatchService();
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Unable to watch for file changes", e);
+        return;
+      }
+      Thread thread = new Thread(this::watch, FileWatcher.class.getName());
+      thread.setDaemon(true);
+      thread.start();
+      servletContext.setAttribute(APPLICATION_ATTRIBUTE, this);
+    }
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    WatchService w = watchService;
+    if (w != null) {
+      servletContext.removeAttribute(APPLICATION_ATTRIBUTE);
+      try {
+        w.close();
+      } catch (IOException e) {
+        logger.log(Level.WARNING, null, e);
+      }
+    }
+  }
+
+  /**
+   * Gets the last modified time of the given file, reading it from the filesystem only when not already known.
+   * The time is only retained while its directory is watched.
+   *
+   * @param  realPath  The real path of the resource
+   *
+   * @return  The last modified time or {@code 0} when the file does not exist
+   */
+  long getLastModified(PageRef pageRef, String realPath) {
+    Path path = Paths.get(realPath);
+    Long lastModified = lastModifieds.get(path);
+    if (lastModified == null) {
+      // Register before reading, so no change is missed
+      if (!register(path.getParent())) {
+        // Not watched, changes would be missed
+        return path.toFile().lastModified();
+      }
+      lastModified = lastModifieds.computeIfAbsent(path, p -> p.toFile().lastModified());
+      Path fileName = path.getFileName();
+      if (fileName != null && TaskImpl.isTaskLogXmlFile(fileName.toString())) {
+        taskLogs.putIfAbsent(path, pageRef);
+      }
+    }
+    return lastModified;
+  }
+
+  /**
+   * Registers the given directory, if not already registered.
+   *
+   * @return  {@code true} when the directory is registered
+   */
+  private boolean register(Path directory) {
+    if (directory == null) {
+      return false;
+    }
+    if (registered.contains(directory)) {
+      return true;
+    }
+    try {
+      WatchKey key = directory.register(
+          watchService,
+          StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_DELETE,
+          StandardWatchEventKinds.ENTRY_MODIFY
+      );
+      directories.putIfAbsent(key, directory);
+      registered.add(directory);
+      return true;
+    } catch (ClosedWatchServiceException e) {
+      // Shutting down
+      return false;
+    } catch (NoSuchFileException e) {
+      logger.log(Level.FINE, "Directory does not exist: " + directory, e);
+      return false;
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Unable to watch directory: " + directory, e);
+      return false;
+    }
+  }
+
+  /**
+   * Registers every directory holding task logs under the given root.
+   */
+  private void registerTaskLogDirectories(Path root) throws IOException {
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        if (TaskImpl.isTaskLogXmlFile(file.getFileName().toString())) {
+          // Continue with the siblings, which may include subdirectories holding more task logs
+          register(file.getParent());
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException e) {
+        logger.log(Level.FINE, null, e);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private void changed(Path path) {
+    lastModifieds.remove(path);
+    PageRef taskLog = taskLogs.remove(path);
+    if (taskLog != null) {
+      TaskLogCache.getInstance(servletContext).remove(taskLog);
+    }
+  }
+
+  private void watch() {
+    try {
+      String root = servletContext.getRealPath("/");
+      if (root != null) {
+        try {
+          registerTaskLogDirectories(Paths.get(root));
+        } catch (IOException e) {
+          logger.log(Level.WARNING, "Unable to register task log directories", e);
+        }
+      }
+      while (true) {
+        WatchKey key = watchService.take();
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+            // Events lost, discard everything
+            lastModifieds.clear();
+            for (PageRef taskLog : taskLogs.values()) {
+              TaskLogCache.getInstance(servletContext).remove(taskLog);
+            }
+            taskLogs.clear();
+          } else {
+            changed(directory.resolve((Path) event.context()));
+          }
+        }
+        if (!key.reset()) {
+          // Directory no longer accessible, discard everything in it
+          directories.remove(key);
+          if (directory != null) {
+            registered.remove(directory);
+            lastModifieds.keySet().removeIf(path -> directory.equals(path.getParent()));
+            taskLogs.keySet().removeIf(path -> directory.equals(path.getParent()));
+          }
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      // Shutting down
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
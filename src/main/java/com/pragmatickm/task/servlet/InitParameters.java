@@ -0,0 +1,101 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.pragmatickm.task.servlet;
+
+import javax.servlet.ServletContext;
+
+/**
+ * Reads the context init parameters of this module.  Values are trimmed, and an empty value is the same as not set.
+ * All parameters are documented in the book.
+ */
+final class InitParameters {
+
+  /** Make no instances. */
+  private InitParameters() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Gets the trimmed value of a context init parameter.
+   *
+   * @return  The value or {@code null} when not set or empty
+   */
+  static String getString(ServletContext servletContext, String name) {
+    String value = servletContext.getInitParameter(name);
+    if (value != null) {
+      value = value.trim();
+      if (value.isEmpty()) {
+        value = null;
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Gets a context init parameter as a boolean.
+   *
+   * @return  {@code true} only when set to {@code true}, case-insensitive
+   */
+  static boolean getBoolean(ServletContext servletContext, String name) {
+    return Boolean.parseBoolean(getString(servletContext, name));
+  }
+
+  /**
+   * Gets a context init parameter as a non-negative {@code int}.
+   *
+   * @return  The value or {@code defaultValue} when not set or empty
+   *
+   * @throws  IllegalArgumentException  when not a number or negative
+   */
+  static int getNonNegativeInt(ServletContext servletContext, String name, int defaultValue) {
+    String value = getString(servletContext, name);
+    if (value == null) {
+      return defaultValue;
+    }
+    int i = Integer.parseInt(value);
+    if (i < 0) {
+      throw new IllegalArgumentException(name + " may not be negative: " + i);
+    }
+    return i;
+  }
+
+  /**
+   * Gets a context init parameter as a non-negative {@code long}.
+   *
+   * @return  The value or {@code defaultValue} when not set or empty
+   *
+   * @throws  IllegalArgumentException  when not a number or negative
+   */
+  static long getNonNegativeLong(ServletContext servletContext, String name, long defaultValue) {
+    String value = getString(servletContext, name);
+    if (value == null) {
+      return defaultValue;
+    }
+    long l = Long.parseLong(value);
+    if (l < 0) {
+      throw new IllegalArgumentException(name + " may not be negative: " + l);
+    }
+    return l;
+  }
+}
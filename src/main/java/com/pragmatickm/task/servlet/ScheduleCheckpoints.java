@@ -0,0 +1,204 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.pragmatickm.task.servlet;
+
+import com.aoapps.hodgepodge.schedule.Recurring;
+import com.pragmatickm.task.model.TaskLog;
+import com.semanticcms.core.model.ElementRef;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.ServletContext;
+
+/**
+ * Finds the first incomplete scheduled day of non-relative recurring tasks, resuming from a checkpoint per task.
+ *
+ * <p>Walking the schedule from the original "on" date costs one step per scheduled day, which grows without bound for
+ * long-running recurring tasks.  Instead, the position in the schedule is retained per task along with the task log
+ * index it was computed from.  While the index is of the same entries, the result is returned directly.  When every day that
+ * was completed before the previous result is still completed, such as when entries have only been appended, the
+ * walk resumes from the previous result.  Otherwise, the schedule is walked from the start.</p>
+ *
+ * <p>The checkpoints are application-scoped.  The maximum number of checkpoints is set by the context init parameter
+ * {@link #SIZE_INIT_PARAM}, defaulting to {@link #DEFAULT_SIZE}, after which the least recently used are evicted.
+ * When {@code 0}, no checkpoints are retained and the schedule is always walked from the start.</p>
+ */
+final class ScheduleCheckpoints {
+
+  /**
+   * The context init parameter that sets the maximum number of checkpoints retained.
+   */
+  static final String SIZE_INIT_PARAM = ScheduleCheckpoints.class.getName() + ".size";
+
+  /**
+   * The default maximum number of checkpoints retained.
+   */
+  static final int DEFAULT_SIZE = 1000;
+
+  private static final String APPLICATION_ATTRIBUTE = ScheduleCheckpoints.class.getName();
+
+  /**
+   * Gets the schedule checkpoints.
+   */
+  static ScheduleCheckpoints getInstance(ServletContext servletContext) {
+    ScheduleCheckpoints instance = (ScheduleCheckpoints) servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+    if (instance == null) {
+      synchronized (ScheduleCheckpoints.class) {
+        instance = (ScheduleCheckpoints) servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+        if (instance == null) {
+          instance = new ScheduleCheckpoints(
+              InitParameters.getNonNegativeInt(servletContext, SIZE_INIT_PARAM, DEFAULT_SIZE)
+          );
+          servletContext.setAttribute(APPLICATION_ATTRIBUTE, instance);
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * A position in the schedule of a task.  Only the owner of a checkpoint, which removed it from
+   * {@link #checkpoints}, may advance its iterator.
+   */
+  private static final class Checkpoint {
+
+    private final long on;
+    private final Recurring recurring;
+    private final TaskLogIndex index;
+
+    /**
+     * The schedule, positioned just after {@link #firstIncomplete}.
+     */
+    private final Iterator<Calendar> schedule;
+
+    private final long firstIncomplete;
+
+    private Checkpoint(
+        long on,
+        Recurring recurring,
+        TaskLogIndex index,
+        Iterator<Calendar> schedule,
+        long firstIncomplete
+    ) {
+      this.on = on;
+      this.recurring = recurring;
+      this.index = index;
+      this.schedule = schedule;
+      this.firstIncomplete = firstIncomplete;
+    }
+  }
+
+  private final int maxSize;
+
+  /**
+   * The checkpoint of each task, in least recently used order.  All access synchronized on this map.
+   */
+  private final Map<ElementRef, Checkpoint> checkpoints;
+
+  private ScheduleCheckpoints(int maxSize) {
+    this.maxSize = maxSize;
+    this.checkpoints = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<ElementRef, Checkpoint> eldest) {
+        return size() > ScheduleCheckpoints.this.maxSize;
+      }
+    };
+  }
+
+  /**
+   * Gets the first scheduled day, starting at "on", without a completed most recent entry.
+   * This is equivalent to {@link TaskLog#getFirstIncompleteScheduledOn(java.util.Calendar, com.aoapps.hodgepodge.schedule.Recurring)}.
+   *
+   * @param  elementRef  The task the schedule is for, which identifies its checkpoint
+   *
+   * @return  The epoch day of the first incomplete scheduled day
+   */
+  long getFirstIncompleteScheduledOn(
+      ElementRef elementRef,
+      TaskLogIndex index,
+      Calendar on,
+      Recurring recurring
+  ) {
+    long onDay = EpochDay.of(on);
+    Checkpoint checkpoint;
+    if (maxSize == 0) {
+      checkpoint = null;
+    } else {
+      synchronized (checkpoints) {
+        checkpoint = checkpoints.get(elementRef);
+      }
+    }
+    if (
+        checkpoint != null
+            && (checkpoint.on != onDay || !checkpoint.recurring.equals(recurring))
+    ) {
+      checkpoint = null;
+    }
+    if (checkpoint != null && checkpoint.index.isSameAs(index)) {
+      return checkpoint.firstIncomplete;
+    }
+    Iterator<Calendar> schedule;
+    long firstIncomplete;
+    if (
+        checkpoint != null
+            && checkpoint.index.isStillCompletedBefore(index, checkpoint.firstIncomplete)
+            // Take ownership of the schedule iterator
+            && remove(elementRef, checkpoint)
+    ) {
+      schedule = checkpoint.schedule;
+      firstIncomplete = checkpoint.firstIncomplete;
+    } else {
+      schedule = recurring.getScheduleIterator(on);
+      firstIncomplete = EpochDay.of(schedule.next());
+    }
+    while (index.isCompleted(firstIncomplete)) {
+      firstIncomplete = EpochDay.of(schedule.next());
+    }
+    if (maxSize != 0) {
+      Checkpoint newCheckpoint = new Checkpoint(onDay, recurring, index, schedule, firstIncomplete);
+      synchronized (checkpoints) {
+        checkpoints.put(elementRef, newCheckpoint);
+      }
+    }
+    return firstIncomplete;
+  }
+
+  /**
+   * Removes the given checkpoint, if still current.
+   *
+   * @return  {@code true} when removed
+   */
+  private boolean remove(ElementRef elementRef, Checkpoint checkpoint) {
+    synchronized (checkpoints) {
+      if (checkpoints.get(elementRef) == checkpoint) {
+        checkpoints.remove(elementRef);
+        return true;
+      }
+      return false;
+    }
+  }
+}
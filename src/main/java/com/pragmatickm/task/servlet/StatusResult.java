@@ -1,6 +1,6 @@
 /*
  * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
- * Copyright (C) 2013, 2014, 2015, 2016, 2017, 2020, 2021, 2022  AO Industries, Inc.
+ * Copyright (C) 2013, 2014, 2015, 2016, 2017, 2020, 2021, 2022, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -25,7 +25,6 @@ package com.pragmatickm.task.servlet;
 
 import com.aoapps.lang.util.UnmodifiableCalendar;
 import com.pragmatickm.task.model.TaskLog;
-import java.util.Calendar;
 
 public class StatusResult {
 
@@ -117,8 +116,18 @@ public class StatusResult {
   private final boolean completedSchedule;
   private final boolean readySchedule;
   private final boolean futureSchedule;
-  private final UnmodifiableCalendar date;
+  private final long date;
 
+  /**
+   * The calendar for {@link #date}, created when first needed.
+   */
+  private volatile UnmodifiableCalendar dateCalendar;
+
+  /**
+   * Creates a new status result.
+   *
+   * @param  date  The epoch day or {@link EpochDay#NONE} for no date
+   */
   StatusResult(
       Style style,
       String description,
@@ -126,7 +135,7 @@ public class StatusResult {
       boolean completedSchedule,
       boolean readySchedule,
       boolean futureSchedule,
-      Calendar date
+      long date
   ) {
     if (completedSchedule && readySchedule) {
       throw new AssertionError("A task may not be both completed and ready");
@@ -140,15 +149,20 @@ public class StatusResult {
     this.completedSchedule = completedSchedule;
     this.readySchedule = readySchedule;
     this.futureSchedule = futureSchedule;
-    this.date = UnmodifiableCalendar.wrap(date);
+    this.date = date;
   }
 
+  /**
+   * Creates a new status result from a task log status.
+   *
+   * @param  date  The epoch day or {@link EpochDay#NONE} for no date
+   */
   StatusResult(
       TaskLog.Status taskStatus,
       String comments,
       boolean allDoBeforesCompleted,
       boolean futureSchedule,
-      Calendar date
+      long date
   ) {
     if (allDoBeforesCompleted) {
       this.style = Style.getStyle(taskStatus);
@@ -161,7 +175,7 @@ public class StatusResult {
     this.completedSchedule = taskStatus.isCompletedSchedule();
     this.readySchedule = allDoBeforesCompleted && !taskStatus.isCompletedSchedule();
     this.futureSchedule = futureSchedule;
-    this.date = UnmodifiableCalendar.wrap(date);
+    this.date = date;
   }
 
   public Style getStyle() {
@@ -188,8 +202,26 @@ public class StatusResult {
     return futureSchedule;
   }
 
+  /**
+   * Gets the date of the status.
+   * The calendar is only created on the first call.
+   */
   @SuppressWarnings("ReturnOfDateField") // UnmodifiableCalendar
   public UnmodifiableCalendar getDate() {
+    UnmodifiableCalendar d = dateCalendar;
+    if (d == null && date != EpochDay.NONE) {
+      d = UnmodifiableCalendar.wrap(EpochDay.toCalendar(date));
+      dateCalendar = d;
+    }
+    return d;
+  }
+
+  /**
+   * Gets the date of the status as an epoch day, without creating any calendar.
+   *
+   * @return  The epoch day or {@link EpochDay#NONE} for no date
+   */
+  long getEpochDay() {
     return date;
   }
 }
@@ -0,0 +1,184 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.pragmatickm.task.servlet;
+
+import com.pragmatickm.task.model.Task;
+import com.pragmatickm.task.model.TaskException;
+import com.semanticcms.core.model.ElementRef;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Computes the statuses of all tasks for the next day shortly before each day boundary.
+ *
+ * <p>The statuses are built separately from the {@link ApplicationStatusCache}, so today's cached statuses are not
+ * evicted, then {@link ApplicationStatusCache#setPrecomputed(com.pragmatickm.task.servlet.ApplicationStatusCache.Precomputed) swapped in}
+ * at midnight.  Thus they are used as soon as the day changes, instead of the first requests after midnight
+ * recomputing the status of every task.  Any status whose task log or page is modified before then is recomputed as
+ * usual.  "Do Before" tasks are resolved iteratively, so long chains do not exhaust the stack.</p>
+ *
+ * <p>This is only active when the application status cache is enabled.
+ * Precomputation begins {@link #LEAD_TIME_INIT_PARAM} milliseconds before midnight,
+ * defaulting to {@link #DEFAULT_LEAD_TIME}.  The statuses are computed from the index of the root book, so nothing is
+ * done until the index has been built by a request.</p>
+ */
+@WebListener("Computes the statuses of all tasks shortly before each day boundary.")
+public final class StatusRollover implements ServletContextListener {
+
+  private static final Logger logger = Logger.getLogger(StatusRollover.class.getName());
+
+  /**
+   * The context init parameter that sets the number of milliseconds before midnight to compute the next day's
+   * statuses.
+   */
+  public static final String LEAD_TIME_INIT_PARAM = StatusRollover.class.getName() + ".leadTime";
+
+  /**
+   * The default number of milliseconds before midnight to compute the next day's statuses.
+   */
+  public static final long DEFAULT_LEAD_TIME = 60L * 1000;
+
+  private final Clock clock = Clock.systemDefaultZone();
+
+  private volatile ServletContext servletContext;
+  private volatile long leadTime;
+  private volatile ScheduledExecutorService executor;
+
+  /**
+   * The most recent day that has been computed.
+   * Only accessed by the executor thread.
+   */
+  private long lastDay = EpochDay.NONE;
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    servletContext = event.getServletContext();
+    if (ApplicationStatusCache.getInstance(servletContext) != null) {
+      leadTime = InitParameters.getNonNegativeLong(servletContext, LEAD_TIME_INIT_PARAM, DEFAULT_LEAD_TIME);
+      executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, StatusRollover.class.getName());
+        thread.setDaemon(true);
+        return thread;
+      });
+      scheduleNext();
+    }
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    ScheduledExecutorService e = executor;
+    if (e != null) {
+      e.shutdownNow();
+    }
+  }
+
+  /**
+   * Schedules the computation of the first day after both today and the last computed day.
+   */
+  private void scheduleNext() {
+    final long day = Math.max(EpochDay.today(clock), lastDay) + 1;
+    final long startOfDay = LocalDate.ofEpochDay(day).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+    long delay = Math.max(0, startOfDay - leadTime - clock.millis());
+    executor.schedule(
+        () -> {
+          try {
+            ApplicationStatusCache.Precomputed precomputed = computeDay(day);
+            if (precomputed != null && !executor.isShutdown()) {
+              // Swap in at the start of the day
+              executor.schedule(
+                  () -> ApplicationStatusCache.getInstance(servletContext).setPrecomputed(precomputed),
+                  Math.max(0, startOfDay - clock.millis()),
+                  TimeUnit.MILLISECONDS
+              );
+            }
+          } catch (ThreadDeath td) {
+            throw td;
+          } catch (Throwable t) {
+            logger.log(Level.SEVERE, null, t);
+          } finally {
+            lastDay = day;
+            if (!executor.isShutdown()) {
+              scheduleNext();
+            }
+          }
+        },
+        delay,
+        TimeUnit.MILLISECONDS
+    );
+  }
+
+  /**
+   * Computes the status of all tasks for the given day, using the index to resolve "Do Before" tasks.
+   * This follows the same rules as {@link TaskUtil#getStatus(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.pragmatickm.task.model.Task)}.
+   *
+   * @return  The statuses or {@code null} when not computed
+   */
+  private ApplicationStatusCache.Precomputed computeDay(long day) {
+    ApplicationStatusCache cache = ApplicationStatusCache.getInstance(servletContext);
+    TaskIndex index = TaskIndex.getCurrentRootIndex(servletContext);
+    if (cache == null || index == null) {
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("Task index not available, skipping " + EpochDay.format(day));
+      }
+      return null;
+    }
+    ApplicationStatusCache.Precomputed precomputed = cache.newPrecomputed(day);
+    Map<ElementRef, StatusResult> statuses = new HashMap<>();
+    TaskUtil.DoBeforeResolver doBeforeResolver = doBeforeRef -> {
+      Task doBefore = index.getTask(doBeforeRef);
+      if (doBefore == null) {
+        throw new TaskException("doBefore not found: " + doBeforeRef);
+      }
+      if (doBefore.getPage().getGeneratedIds().contains(doBefore.getId())) {
+        throw new TaskException("Not allowed to reference task by generated id, set an explicit id on the task: " + doBefore);
+      }
+      return doBefore;
+    };
+    for (Task task : index.getTasks()) {
+      if (Thread.currentThread().isInterrupted()) {
+        return null;
+      }
+      try {
+        TaskUtil.getStatusIterative(servletContext, task, day, statuses, precomputed, doBeforeResolver);
+      } catch (TaskException | ServletException | IOException e) {
+        // The error will be reported when the status is requested
+        logger.log(Level.FINE, null, e);
+      }
+    }
+    return precomputed;
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.pragmatickm.task.servlet;
+
+import com.semanticcms.core.model.ElementRef;
+import java.util.Map;
+
+/**
+ * Where statuses are looked up and stored while being computed.
+ *
+ * @see  ApplicationStatusCache
+ * @see  ApplicationStatusCache.Precomputed
+ */
+interface StatusStore {
+
+  /**
+   * Gets the key for the current state of the given task.
+   *
+   * @param  today  The epoch day of the current day
+   *
+   * @return  The key or {@code null} when the task log or page is not directly accessible on the filesystem
+   */
+  ApplicationStatusCache.Key getKey(ElementRef elementRef, long today);
+
+  /**
+   * Gets a stored status.
+   *
+   * @return  The status or {@code null} when not stored or no longer valid
+   */
+  StatusResult get(ApplicationStatusCache.Key key);
+
+  /**
+   * Stores a status.
+   *
+   * @param  doBefores  The statuses of all "Do Before" tasks consulted in computing the status.
+   */
+  void put(ApplicationStatusCache.Key key, StatusResult status, Map<ElementRef, StatusResult> doBefores);
+}
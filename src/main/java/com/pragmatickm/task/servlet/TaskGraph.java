@@ -0,0 +1,234 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.pragmatickm.task.servlet;
+
+import com.aoapps.collections.AoCollections;
+import com.pragmatickm.task.model.Task;
+import com.semanticcms.core.model.ElementRef;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * The "Do Before" dependency graph of a set of tasks.  Each task is given a dense ordinal, in the order provided, and
+ * the edges in both directions are stored in compressed sparse row form: the targets of the edges of ordinal
+ * {@code i} are {@code targets[offsets[i]]} through {@code targets[offsets[i + 1] - 1]}.  This allows walks over the
+ * graph without allocation or hashing.
+ *
+ * <p>"Do Before" references to tasks not in the graph are not edges, but the tasks referencing them are still
+ * available by {@link #getDoAfters(com.semanticcms.core.model.ElementRef)}.</p>
+ */
+final class TaskGraph {
+
+  private final Task[] tasks;
+  private final Map<ElementRef, Integer> ordinals;
+  private final int[] doBeforeOffsets;
+  private final int[] doBeforeTargets;
+  private final int[] doAfterOffsets;
+  private final int[] doAfterTargets;
+
+  /**
+   * The tasks referencing each "Do Before" that is not in the graph, in the order provided.
+   */
+  private final Map<ElementRef, List<Task>> danglingDoAfters;
+
+  /**
+   * Builds the graph of the given tasks.
+   *
+   * @param  tasks  The tasks, which must each have a distinct (page, id)
+   */
+  TaskGraph(List<Task> tasks) {
+    int size = tasks.size();
+    this.tasks = tasks.toArray(new Task[size]);
+    Map<ElementRef, Integer> byRef = AoCollections.newHashMap(size);
+    for (int i = 0; i < size; i++) {
+      if (byRef.put(this.tasks[i].getElementRef(), i) != null) {
+        throw new AssertionError("Duplicate task (page, id)");
+      }
+    }
+    this.ordinals = byRef;
+    // "Do Before" edges, in the order of each task's "Do Before" references
+    int[] beforeOffsets = new int[size + 1];
+    int numEdges = 0;
+    for (int i = 0; i < size; i++) {
+      beforeOffsets[i] = numEdges;
+      for (ElementRef doBeforeRef : this.tasks[i].getDoBefores()) {
+        if (byRef.containsKey(doBeforeRef)) {
+          numEdges++;
+        }
+      }
+    }
+    beforeOffsets[size] = numEdges;
+    int[] beforeTargets = new int[numEdges];
+    // The number of "Do After" edges of each task, shifted by one for the prefix sum
+    int[] afterOffsets = new int[size + 1];
+    Map<ElementRef, List<Task>> dangling = new HashMap<>();
+    int edge = 0;
+    for (int i = 0; i < size; i++) {
+      for (ElementRef doBeforeRef : this.tasks[i].getDoBefores()) {
+        Integer doBefore = byRef.get(doBeforeRef);
+        if (doBefore != null) {
+          beforeTargets[edge++] = doBefore;
+          afterOffsets[doBefore + 1]++;
+        } else {
+          dangling.computeIfAbsent(doBeforeRef, ref -> new ArrayList<>()).add(this.tasks[i]);
+        }
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      afterOffsets[i + 1] += afterOffsets[i];
+    }
+    // "Do After" edges, inverted in the order provided
+    int[] afterTargets = new int[numEdges];
+    int[] next = new int[size];
+    System.arraycopy(afterOffsets, 0, next, 0, size);
+    for (int i = 0; i < size; i++) {
+      for (int j = beforeOffsets[i], end = beforeOffsets[i + 1]; j < end; j++) {
+        afterTargets[next[beforeTargets[j]]++] = i;
+      }
+    }
+    for (Map.Entry<ElementRef, List<Task>> entry : dangling.entrySet()) {
+      entry.setValue(AoCollections.optimalUnmodifiableList(entry.getValue()));
+    }
+    this.doBeforeOffsets = beforeOffsets;
+    this.doBeforeTargets = beforeTargets;
+    this.doAfterOffsets = afterOffsets;
+    this.doAfterTargets = afterTargets;
+    this.danglingDoAfters = dangling;
+  }
+
+  /**
+   * Gets the number of tasks.
+   */
+  int size() {
+    return tasks.length;
+  }
+
+  /**
+   * Gets the task of the given ordinal.
+   */
+  Task getTask(int ordinal) {
+    return tasks[ordinal];
+  }
+
+  /**
+   * Gets the ordinal of the given task.
+   *
+   * @return  The ordinal or {@code -1} when not in the graph
+   */
+  int getOrdinal(ElementRef elementRef) {
+    Integer ordinal = ordinals.get(elementRef);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  /**
+   * Gets a task by page and id.
+   *
+   * @return  The task or {@code null} when not in the graph
+   */
+  Task getTask(ElementRef elementRef) {
+    Integer ordinal = ordinals.get(elementRef);
+    return ordinal == null ? null : tasks[ordinal];
+  }
+
+  /**
+   * Gets the offsets of the "Do Before" edges of each ordinal, with one additional element for the end of the last.
+   * This array must not be modified.
+   */
+  int[] getDoBeforeOffsets() {
+    return doBeforeOffsets;
+  }
+
+  /**
+   * Gets the ordinals of the "Do Before" tasks of all edges.  This array must not be modified.
+   */
+  int[] getDoBeforeTargets() {
+    return doBeforeTargets;
+  }
+
+  /**
+   * Gets the offsets of the "Do After" edges of each ordinal, with one additional element for the end of the last.
+   * This array must not be modified.
+   */
+  int[] getDoAfterOffsets() {
+    return doAfterOffsets;
+  }
+
+  /**
+   * Gets the ordinals of the "Do After" tasks of all edges.  This array must not be modified.
+   */
+  int[] getDoAfterTargets() {
+    return doAfterTargets;
+  }
+
+  /**
+   * An unmodifiable view of a range of edges as tasks.
+   */
+  private final class EdgeList extends AbstractList<Task> implements RandomAccess {
+
+    private final int[] targets;
+    private final int start;
+    private final int size;
+
+    private EdgeList(int[] targets, int start, int end) {
+      this.targets = targets;
+      this.start = start;
+      this.size = end - start;
+    }
+
+    @Override
+    public Task get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException(Integer.toString(index));
+      }
+      return tasks[targets[start + index]];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  /**
+   * Gets all tasks that have a "Do Before" pointing to the given task, in the order provided.
+   *
+   * @return  The unmodifiable list of tasks, possibly empty
+   */
+  List<Task> getDoAfters(ElementRef elementRef) {
+    Integer ordinal = ordinals.get(elementRef);
+    if (ordinal == null) {
+      List<Task> doAfters = danglingDoAfters.get(elementRef);
+      return doAfters == null ? Collections.emptyList() : doAfters;
+    }
+    int start = doAfterOffsets[ordinal];
+    int end = doAfterOffsets[ordinal + 1];
+    return start == end ? Collections.emptyList() : new EdgeList(doAfterTargets, start, end);
+  }
+}
@@ -0,0 +1,432 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.pragmatickm.task.servlet;
+
+import com.aoapps.collections.AoCollections;
+import com.pragmatickm.task.model.Task;
+import com.pragmatickm.task.model.TaskAssignment;
+import com.pragmatickm.task.model.User;
+import com.semanticcms.core.model.Element;
+import com.semanticcms.core.model.ElementRef;
+import com.semanticcms.core.model.Page;
+import com.semanticcms.core.model.PageRef;
+import com.semanticcms.core.servlet.Cache;
+import com.semanticcms.core.servlet.CacheFilter;
+import com.semanticcms.core.servlet.CaptureLevel;
+import com.semanticcms.core.servlet.CapturePage;
+import com.semanticcms.core.servlet.SemanticCMS;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * An index of all tasks in a page tree, including the inverted "Do Before" relationships
+ * and the tasks partitioned by assigned {@link User}.  The relationships and each partition are built when first
+ * needed, so an index used only for the tasks of one user does not pay for the others.
+ *
+ * <p>The index of the root book is built once per application by a depth-first traversal, then shared across
+ * requests.  It is rebuilt when the source of any traversed page has been modified.  Pages are checked at most once
+ * per {@link #CHECK_INTERVAL_INIT_PARAM} milliseconds, defaulting to {@link #DEFAULT_CHECK_INTERVAL}.  Checking and
+ * rebuilding are performed by a single thread at a time, while other threads continue to use the previous index.
+ * The indexes of other pages are built once per request.</p>
+ *
+ * <p>The check reads the last modified time of every traversed page on the request thread that performs it.  These
+ * times are read from memory when the {@link FileWatcher} is enabled, otherwise each page source is read from the
+ * filesystem.  The modification of a page that is not directly accessible on the filesystem cannot be detected, so
+ * when the tree contains any such page, the index is rebuilt at every check.</p>
+ */
+final class TaskIndex {
+
+  /**
+   * The context init parameter that sets the minimum number of milliseconds between checking the pages for changes.
+   */
+  static final String CHECK_INTERVAL_INIT_PARAM = TaskIndex.class.getName() + ".checkInterval";
+
+  /**
+   * The default minimum number of milliseconds between checking the pages for changes.
+   */
+  static final long DEFAULT_CHECK_INTERVAL = 1000;
+
+  private static final String APPLICATION_ATTRIBUTE = TaskIndex.class.getName();
+
+  private static final String REQUEST_CACHE_KEY = TaskIndex.class.getName() + ".getIndex";
+
+  /**
+   * Holds the current index for an application.
+   */
+  private static final class Holder {
+
+    private final long checkInterval;
+
+    /**
+     * The current index, only set while synchronized on this holder.
+     */
+    private volatile TaskIndex index;
+
+    /**
+     * All access synchronized on this holder.
+     */
+    private long lastChecked;
+    private Thread builder;
+    private boolean preloaded;
+
+    private Holder(long checkInterval) {
+      this.checkInterval = checkInterval;
+    }
+  }
+
+  private static Holder getHolder(ServletContext servletContext) {
+    Holder holder = (Holder) servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+    if (holder == null) {
+      synchronized (TaskIndex.class) {
+        holder = (Holder) servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+        if (holder == null) {
+          holder = new Holder(
+              InitParameters.getNonNegativeLong(servletContext, CHECK_INTERVAL_INIT_PARAM, DEFAULT_CHECK_INTERVAL)
+          );
+          servletContext.setAttribute(APPLICATION_ATTRIBUTE, holder);
+        }
+      }
+    }
+    return holder;
+  }
+
+  /**
+   * Gets the index of the root book, building or rebuilding it as needed.
+   * While another thread is checking or rebuilding the index, the previous index is returned.
+   * Only when there is no previous index does this wait for it to be built.
+   */
+  static TaskIndex getRootIndex(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response
+  ) throws ServletException, IOException {
+    Holder holder = getHolder(servletContext);
+    TaskIndex index;
+    long currentTime = System.currentTimeMillis();
+    synchronized (holder) {
+      index = holder.index;
+      if (index != null) {
+        long timeSince = currentTime - holder.lastChecked;
+        if (
+            (timeSince >= 0 && timeSince < holder.checkInterval)
+                // Already being checked or rebuilt by another thread
+                || holder.builder != null
+        ) {
+          return index;
+        }
+      } else {
+        while (holder.builder != null) {
+          if (holder.builder == Thread.currentThread()) {
+            throw new IllegalStateException("Root task index requested while being built");
+          }
+          try {
+            holder.wait();
+          } catch (InterruptedException e) {
+            // Restore the interrupted status
+            Thread.currentThread().interrupt();
+            throw new ServletException(e);
+          }
+        }
+        index = holder.index;
+        if (index != null) {
+          return index;
+        }
+      }
+      holder.builder = Thread.currentThread();
+    }
+    // Check and rebuild without holding the lock
+    TaskIndex result = index;
+    boolean preload = false;
+    try {
+      boolean rebuild = index == null || index.isModified(servletContext);
+      if (rebuild) {
+        result = new TaskIndex(
+            servletContext,
+            request,
+            response,
+            CapturePage.capturePage(
+                servletContext,
+                request,
+                response,
+                SemanticCMS.getInstance(servletContext).getRootBook().getContentRoot(),
+                CaptureLevel.META
+            ),
+            true
+        );
+      }
+      synchronized (holder) {
+        holder.index = result;
+        holder.lastChecked = currentTime;
+        if (rebuild && !holder.preloaded) {
+          holder.preloaded = true;
+          preload = true;
+        }
+      }
+    } finally {
+      synchronized (holder) {
+        holder.builder = null;
+        holder.notifyAll();
+      }
+    }
+    if (preload) {
+      TaskLogPreloader.preload(servletContext, result);
+    }
+    return result;
+  }
+
+  /**
+   * Gets the index of the root book only when it has already been built and no page has since been modified.
+   * This does not require a request, so may be used outside of request processing.  This does not wait for the
+   * index to be checked or rebuilt by another thread.
+   *
+   * @return  The index or {@code null} when not yet built or out-of-date
+   */
+  static TaskIndex getCurrentRootIndex(ServletContext servletContext) {
+    TaskIndex index = getHolder(servletContext).index;
+    return index == null || index.isModified(servletContext) ? null : index;
+  }
+
+  /**
+   * Gets the index of the given page tree.  The root book is indexed once per application, as
+   * {@link #getRootIndex(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)},
+   * while all other pages are indexed once per request.
+   */
+  static TaskIndex getIndex(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page rootPage
+  ) throws ServletException, IOException {
+    if (rootPage.getPageRef().equals(SemanticCMS.getInstance(servletContext).getRootBook().getContentRoot())) {
+      return getRootIndex(servletContext, request, response);
+    }
+    Cache cache = CacheFilter.getCache(request);
+    @SuppressWarnings("unchecked")
+    Map<Page, TaskIndex> indexCache = cache.getAttribute(
+        REQUEST_CACHE_KEY,
+        Map.class,
+        cache::newMap
+    );
+    TaskIndex index = indexCache.get(rootPage);
+    if (index == null) {
+      index = new TaskIndex(servletContext, request, response, rootPage, false);
+      indexCache.put(rootPage, index);
+    }
+    return index;
+  }
+
+  /**
+   * The tasks assigned to a user, with the assignment of each.
+   */
+  private static final class Partition {
+
+    private final List<Task> tasks;
+    private final List<TaskAssignment> assignments;
+
+    private Partition(List<Task> tasks, List<TaskAssignment> assignments) {
+      this.tasks = tasks;
+      this.assignments = assignments;
+    }
+  }
+
+  private final List<Task> tasks;
+
+  /**
+   * The dependency graph, created when first needed.
+   */
+  private volatile TaskGraph graph;
+
+  /**
+   * The partition of each user, created when first needed.  All access synchronized on this map.
+   */
+  private final EnumMap<User, Partition> partitions = new EnumMap<>(User.class);
+
+  private final PageRef[] pageRefs;
+  private final long[] pageLastModifieds;
+
+  /**
+   * Indexes a page tree in a single depth-first traversal.
+   *
+   * @param  recordModified  Records the last modified time of all pages, to support {@link #isModified(javax.servlet.ServletContext)}
+   */
+  private TaskIndex(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page rootPage,
+      boolean recordModified
+  ) throws ServletException, IOException {
+    final List<Task> allTasks = new ArrayList<>();
+    final List<PageRef> allPageRefs = recordModified ? new ArrayList<>() : null;
+    CapturePage.traversePagesDepthFirst(
+        servletContext,
+        request,
+        response,
+        rootPage,
+        CaptureLevel.META,
+        (Page page, int depth) -> {
+          if (allPageRefs != null) {
+            allPageRefs.add(page.getPageRef());
+          }
+          for (Element element : page.getElements()) {
+            if (element instanceof Task) {
+              allTasks.add((Task) element);
+            }
+          }
+          return null;
+        },
+        Page::getChildRefs,
+        // Child not in missing book
+        childPage -> childPage.getBook() != null,
+        null
+    );
+    this.tasks = Collections.unmodifiableList(allTasks);
+    if (allPageRefs != null) {
+      // Record page modification times
+      int numPages = allPageRefs.size();
+      this.pageRefs = allPageRefs.toArray(new PageRef[numPages]);
+      this.pageLastModifieds = new long[numPages];
+      for (int i = 0; i < numPages; i++) {
+        pageLastModifieds[i] = ApplicationStatusCache.getLastModified(servletContext, pageRefs[i]);
+      }
+    } else {
+      this.pageRefs = null;
+      this.pageLastModifieds = null;
+    }
+  }
+
+  /**
+   * Checks if the source of any page in this index has been modified since the index was built.
+   * Any page without a known modification time is always considered modified.
+   */
+  private boolean isModified(ServletContext servletContext) {
+    if (pageRefs == null) {
+      throw new IllegalStateException("Page modification times not recorded");
+    }
+    for (int i = 0, size = pageRefs.length; i < size; i++) {
+      long lastModified = pageLastModifieds[i];
+      if (
+          lastModified == -1
+              || ApplicationStatusCache.getLastModified(servletContext, pageRefs[i]) != lastModified
+      ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets all tasks, in depth-first traversal order.
+   */
+  List<Task> getTasks() {
+    return tasks;
+  }
+
+  /**
+   * Gets all tasks assigned to the given user, in depth-first traversal order.
+   *
+   * @param  user  When {@code null}, gets all tasks
+   */
+  List<Task> getTasks(User user) {
+    return user == null ? tasks : getPartition(user).tasks;
+  }
+
+  /**
+   * Gets the assignments to the given user, in the same order as {@link #getTasks(com.pragmatickm.task.model.User)}.
+   */
+  List<TaskAssignment> getAssignments(User user) {
+    return getPartition(user).assignments;
+  }
+
+  /**
+   * Gets the partition of the given user, building it in a single pass over all tasks when first needed.
+   */
+  private Partition getPartition(User user) {
+    synchronized (partitions) {
+      Partition partition = partitions.get(user);
+      if (partition == null) {
+        List<Task> userTasks = new ArrayList<>();
+        List<TaskAssignment> assignments = new ArrayList<>();
+        for (Task task : tasks) {
+          TaskAssignment assignedTo = task.getAssignedTo(user);
+          if (assignedTo != null) {
+            userTasks.add(task);
+            assignments.add(assignedTo);
+          }
+        }
+        partition = new Partition(
+            AoCollections.optimalUnmodifiableList(userTasks),
+            AoCollections.optimalUnmodifiableList(assignments)
+        );
+        partitions.put(user, partition);
+      }
+      return partition;
+    }
+  }
+
+  /**
+   * Gets the dependency graph of all tasks, with ordinals in depth-first traversal order.
+   * The graph is built when first needed.
+   */
+  TaskGraph getGraph() {
+    TaskGraph g = graph;
+    if (g == null) {
+      synchronized (this) {
+        g = graph;
+        if (g == null) {
+          // Index tasks by page, id, and invert dependency DAG, in traversal order
+          g = new TaskGraph(tasks);
+          graph = g;
+        }
+      }
+    }
+    return g;
+  }
+
+  /**
+   * Gets a task by page and id.
+   *
+   * @return  The task or {@code null} when not found
+   */
+  Task getTask(ElementRef elementRef) {
+    return getGraph().getTask(elementRef);
+  }
+
+  /**
+   * Gets all tasks that have a "Do Before" pointing to the given task, in depth-first traversal order.
+   *
+   * @return  The unmodifiable list of tasks, possibly empty
+   */
+  List<Task> getDoAfters(ElementRef elementRef) {
+    return getGraph().getDoAfters(elementRef);
+  }
+}
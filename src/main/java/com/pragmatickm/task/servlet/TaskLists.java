@@ -0,0 +1,84 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.pragmatickm.task.servlet;
+
+import com.pragmatickm.task.model.Task;
+import java.util.List;
+
+/**
+ * All the task lists for a given root page and user, classified together in a single pass.
+ *
+ * @see  TaskUtil#getTaskLists(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)
+ */
+public final class TaskLists {
+
+  private final List<Task> allTasks;
+  private final List<Task> readyTasks;
+  private final List<Task> blockedTasks;
+  private final List<Task> futureTasks;
+
+  TaskLists(
+      List<Task> allTasks,
+      List<Task> readyTasks,
+      List<Task> blockedTasks,
+      List<Task> futureTasks
+  ) {
+    this.allTasks = allTasks;
+    this.readyTasks = readyTasks;
+    this.blockedTasks = blockedTasks;
+    this.futureTasks = futureTasks;
+  }
+
+  /**
+   * The same as {@link TaskUtil#getAllTasks(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)}.
+   */
+  @SuppressWarnings("ReturnOfCollectionOrArrayField") // Unmodifiable
+  public List<Task> getAllTasks() {
+    return allTasks;
+  }
+
+  /**
+   * The same as {@link TaskUtil#getReadyTasks(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)}.
+   */
+  @SuppressWarnings("ReturnOfCollectionOrArrayField") // Unmodifiable
+  public List<Task> getReadyTasks() {
+    return readyTasks;
+  }
+
+  /**
+   * The same as {@link TaskUtil#getBlockedTasks(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)}.
+   */
+  @SuppressWarnings("ReturnOfCollectionOrArrayField") // Unmodifiable
+  public List<Task> getBlockedTasks() {
+    return blockedTasks;
+  }
+
+  /**
+   * The same as {@link TaskUtil#getFutureTasks(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)}.
+   */
+  @SuppressWarnings("ReturnOfCollectionOrArrayField") // Unmodifiable
+  public List<Task> getFutureTasks() {
+    return futureTasks;
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.pragmatickm.task.servlet;
+
+import com.pragmatickm.task.model.Task;
+import com.pragmatickm.task.model.TaskLog;
+import com.pragmatickm.task.servlet.impl.TaskImpl;
+import com.semanticcms.core.model.ElementRef;
+import com.semanticcms.core.model.PageRef;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.servlet.ServletContext;
+
+/**
+ * An application-scoped cache of {@link TaskLog}, validated against the last modified time of the task log XML file.
+ * The entries of an unchanged task log are loaded once, instead of each time the task log is requested.
+ *
+ * <p>Task logs are only cached once the context init parameter {@link #SIZE_INIT_PARAM} is set to the maximum number
+ * to retain, after which the least recently used are evicted.  While enabled, the
+ * same task log instance is shared by all requests until its file changes.  Task logs that are not directly
+ * accessible on the filesystem are never cached.  Whether enabled or not, the {@link TaskLogIndex} of each loaded task
+ * log is retained for as long as the task log itself, so it is built once per loaded list of entries.</p>
+ *
+ * <p>When the context init parameter {@link #INDEX_ONLY_INIT_PARAM} is {@code true}, this cache retains only the
+ * {@link TaskLogIndex} of each task log for status computation, not the task log itself.  The entries are still parsed
+ * in full by the model; the index is built from them and does not reference them, so they are not retained by this
+ * cache.  These indexes are cached separately, with the same maximum size, or without limit when {@link #SIZE_INIT_PARAM}
+ * is {@code 0}.  Task logs requested in full, such as by {@link TaskUtil#getTaskLogInBook(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, java.lang.String, java.lang.String, java.lang.String)},
+ * are still loaded in full.  Task logs that do not exist or are not directly accessible on the filesystem are
+ * always loaded in full.  Enabling the {@link TaskLogPreloader} implies this, so the preloaded indexes are retained.</p>
+ *
+ * <p>When the context init parameter {@link #SIDECAR_DIRECTORY_INIT_PARAM} is set, the index of each task log is also
+ * stored in a {@link TaskLogSidecar} under that directory, which is read instead of the XML file until the XML file
+ * changes.  This implies {@link #INDEX_ONLY_INIT_PARAM}.  A relative directory is resolved against the temporary
+ * directory of the application.</p>
+ */
+final class TaskLogCache {
+
+  /**
+   * The context init parameter that sets the maximum number of task logs in the cache.
+   * When not set or {@code 0}, the cache is disabled.
+   */
+  static final String SIZE_INIT_PARAM = TaskLogCache.class.getName() + ".size";
+
+  /**
+   * The context init parameter that retains only the index of each task log for status computation.
+   */
+  static final String INDEX_ONLY_INIT_PARAM = TaskLogCache.class.getName() + ".indexOnly";
+
+  /**
+   * The context init parameter that sets the directory to store the task log index sidecars.
+   */
+  static final String SIDECAR_DIRECTORY_INIT_PARAM = TaskLogCache.class.getName() + ".sidecarDirectory";
+
+  private static final String APPLICATION_ATTRIBUTE = TaskLogCache.class.getName();
+
+  /**
+   * Gets the task log cache.
+   */
+  static TaskLogCache getInstance(ServletContext servletContext) {
+    TaskLogCache instance = (TaskLogCache) servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+    if (instance == null) {
+      synchronized (TaskLogCache.class) {
+        instance = (TaskLogCache) servletContext.getAttribute(APPLICATION_ATTRIBUTE);
+        if (instance == null) {
+          String sidecarDirectoryParam = InitParameters.getString(servletContext, SIDECAR_DIRECTORY_INIT_PARAM);
+          File sidecarDirectory;
+          if (sidecarDirectoryParam == null) {
+            sidecarDirectory = null;
+          } else {
+            sidecarDirectory = new File(sidecarDirectoryParam);
+            if (!sidecarDirectory.isAbsolute()) {
+              sidecarDirectory = new File((File) servletContext.getAttribute(ServletContext.TEMPDIR), sidecarDirectoryParam);
+            }
+          }
+          instance = new TaskLogCache(
+              servletContext,
+              InitParameters.getNonNegativeInt(servletContext, SIZE_INIT_PARAM, 0),
+              sidecarDirectory != null
+                  || InitParameters.getBoolean(servletContext, INDEX_ONLY_INIT_PARAM)
+                  || TaskLogPreloader.isEnabled(servletContext),
+              sidecarDirectory
+          );
+          servletContext.setAttribute(APPLICATION_ATTRIBUTE, instance);
+        }
+      }
+    }
+    return instance;
+  }
+
+  private static final class CachedTaskLog {
+
+    private final TaskLog taskLog;
+    private final long lastModified;
+
+    private CachedTaskLog(TaskLog taskLog, long lastModified) {
+      this.taskLog = taskLog;
+      this.lastModified = lastModified;
+    }
+  }
+
+  private static final class CachedIndex {
+
+    private final TaskLogIndex index;
+    private final long lastModified;
+
+    private CachedIndex(TaskLogIndex index, long lastModified) {
+      this.index = index;
+      this.lastModified = lastModified;
+    }
+  }
+
+  private final ServletContext servletContext;
+  private final int maxSize;
+  private final boolean indexOnly;
+  private final File sidecarDirectory;
+  private final Map<PageRef, CachedTaskLog> taskLogs;
+  private final Map<PageRef, CachedIndex> indexes;
+
+  /**
+   * The index of each loaded task log, retained while the task log is reachable, including when this cache is
+   * disabled.  All access synchronized on this map.
+   */
+  private final Map<TaskLog, TaskLogIndex> loadedIndexes = new WeakHashMap<>();
+
+  private TaskLogCache(ServletContext servletContext, int maxSize, boolean indexOnly, File sidecarDirectory) {
+    this.servletContext = servletContext;
+    this.maxSize = maxSize;
+    this.indexOnly = indexOnly;
+    this.sidecarDirectory = sidecarDirectory;
+    this.taskLogs = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<PageRef, CachedTaskLog> eldest) {
+        return size() > TaskLogCache.this.maxSize;
+      }
+    };
+    this.indexes = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<PageRef, CachedIndex> eldest) {
+        return TaskLogCache.this.maxSize != 0 && size() > TaskLogCache.this.maxSize;
+      }
+    };
+  }
+
+  /**
+   * Gets the task log for the given XML file.  When cached, its entries are already loaded, otherwise they are loaded
+   * by the model when first requested.
+   */
+  TaskLog getTaskLog(PageRef xmlFile) throws IOException {
+    if (maxSize == 0) {
+      return TaskLog.getTaskLog(xmlFile);
+    }
+    long lastModified = ApplicationStatusCache.getLastModified(servletContext, xmlFile);
+    if (lastModified == -1) {
+      return TaskLog.getTaskLog(xmlFile);
+    }
+    CachedTaskLog cached;
+    synchronized (taskLogs) {
+      cached = taskLogs.get(xmlFile);
+    }
+    if (cached != null && cached.lastModified == lastModified) {
+      return cached.taskLog;
+    }
+    TaskLog taskLog = TaskLog.getTaskLog(xmlFile);
+    // Load now, so the entries are parsed once while cached
+    taskLog.getEntries();
+    cached = new CachedTaskLog(taskLog, lastModified);
+    synchronized (taskLogs) {
+      taskLogs.put(xmlFile, cached);
+    }
+    return taskLog;
+  }
+
+  /**
+   * Gets the index of the task log of the given task, for status computation.  When index-only, only the index is
+   * retained, read from its sidecar when available.  Falls back to the index of the loaded task log when the file does
+   * not exist or is not directly accessible on the filesystem, such as when the book is outside the web application.
+   */
+  TaskLogIndex getStatusIndex(Task task) throws IOException {
+    ElementRef elementRef = task.getElementRef();
+    PageRef xmlFile = TaskImpl.getTaskLogXmlFile(elementRef.getPageRef(), elementRef.getId());
+    if (indexOnly) {
+      long lastModified = ApplicationStatusCache.getLastModified(servletContext, xmlFile);
+      if (lastModified > 0) {
+        CachedIndex cached;
+        synchronized (indexes) {
+          cached = indexes.get(xmlFile);
+        }
+        if (cached != null && cached.lastModified == lastModified) {
+          return cached.index;
+        }
+        TaskLogIndex index;
+        String realPath = servletContext.getRealPath(xmlFile.getServletPath());
+        if (sidecarDirectory == null || realPath == null) {
+          index = new TaskLogIndex(TaskLog.getTaskLog(xmlFile).getEntries()).withoutEntries();
+        } else {
+          index = TaskLogSidecar.getIndex(
+              xmlFile,
+              new File(realPath),
+              new File(sidecarDirectory, xmlFile.getServletPath() + TaskLogSidecar.EXTENSION)
+          );
+        }
+        cached = new CachedIndex(index, lastModified);
+        synchronized (indexes) {
+          indexes.put(xmlFile, cached);
+        }
+        return index;
+      }
+    }
+    return getIndex(maxSize == 0 ? task.getTaskLog() : getTaskLog(xmlFile));
+  }
+
+  /**
+   * Gets the index of the current entries of the given task log.  The index is retained for as long as the task log
+   * is reachable, and rebuilt only when the task log has loaded new entries.
+   */
+  TaskLogIndex getIndex(TaskLog taskLog) throws IOException {
+    List<TaskLog.Entry> entries = taskLog.getEntries();
+    TaskLogIndex index;
+    synchronized (loadedIndexes) {
+      index = loadedIndexes.get(taskLog);
+    }
+    if (index == null || !index.isIndexOf(entries)) {
+      index = new TaskLogIndex(entries);
+      synchronized (loadedIndexes) {
+        loadedIndexes.put(taskLog, index);
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Removes the task log for the given XML file, if cached.
+   */
+  void remove(PageRef xmlFile) {
+    synchronized (taskLogs) {
+      taskLogs.remove(xmlFile);
+    }
+    synchronized (indexes) {
+      indexes.remove(xmlFile);
+    }
+  }
+}
@@ -0,0 +1,329 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.pragmatickm.task.servlet;
+
+import com.pragmatickm.task.model.TaskLog;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * An index of the entries of a {@link TaskLog}, which replaces linear scans from the most recent entry.
+ * Only the entries that may affect the status of a task are retained: the most recent entry for each scheduled day,
+ * the most recent entry without a scheduled day, and the most recent entry of a completed schedule.
+ *
+ * <p>The index is built from the loaded entries of a task log, and retained by the {@link TaskLogCache} either with
+ * the task log or in its place.  It may also be read from its binary sidecar by {@link TaskLogSidecar}.  When built from
+ * loaded entries, the most recent entry of each status is also indexed.</p>
+ */
+final class TaskLogIndex {
+
+  /**
+   * The parts of a task log entry used to compute status, with all dates as epoch days.
+   */
+  static final class Entry {
+
+    private final TaskLog.Status status;
+    private final long on;
+    private final long lastScheduledOn;
+    private final String comments;
+
+    Entry(TaskLog.Status status, long on, long lastScheduledOn, String comments) {
+      this.status = status;
+      this.on = on;
+      this.lastScheduledOn = lastScheduledOn;
+      this.comments = comments;
+    }
+
+    private Entry(TaskLog.Entry entry) {
+      SortedSet<? extends Calendar> scheduledOns = entry.getScheduledOns();
+      this.status = entry.getStatus();
+      this.on = EpochDay.of(entry.getOn());
+      this.lastScheduledOn = scheduledOns.isEmpty() ? EpochDay.NONE : EpochDay.of(scheduledOns.last());
+      this.comments = entry.getComments();
+    }
+
+    TaskLog.Status getStatus() {
+      return status;
+    }
+
+    /**
+     * Gets the epoch day the entry was made on.
+     */
+    long getOn() {
+      return on;
+    }
+
+    /**
+     * Gets the last scheduled day of the entry.
+     *
+     * @return  The epoch day or {@link EpochDay#NONE} when not scheduled
+     */
+    long getLastScheduledOn() {
+      return lastScheduledOn;
+    }
+
+    String getComments() {
+      return comments;
+    }
+  }
+
+  /**
+   * Builds an index from entries added in order.
+   */
+  private static final class Builder<E> {
+
+    private final SortedMap<Long, E> byScheduledOn = new TreeMap<>();
+    private E unscheduled;
+    private E completedSchedule;
+
+    /**
+     * Adds the next entry.
+     *
+     * @param  scheduledOns  The epoch days the entry is scheduled on
+     */
+    void add(E entry, TaskLog.Status status, long[] scheduledOns) {
+      if (scheduledOns.length == 0) {
+        unscheduled = entry;
+      } else {
+        for (long scheduledOn : scheduledOns) {
+          byScheduledOn.put(scheduledOn, entry);
+        }
+      }
+      if (status.isCompletedSchedule()) {
+        completedSchedule = entry;
+      }
+    }
+  }
+
+  private static final TaskLog.Status[] statuses = TaskLog.Status.values();
+
+  /**
+   * The entries this index was built from or {@code null} when not built from loaded entries.
+   */
+  private final List<TaskLog.Entry> entries;
+
+  /**
+   * The index of the most recent entry for each status, by ordinal, or {@code -1} when none.
+   * {@code null} when not built from loaded entries.
+   */
+  private final int[] mostRecentByStatus;
+
+  /**
+   * The scheduled days, sorted.
+   */
+  private final long[] scheduledOns;
+
+  /**
+   * The most recent entry for each of {@link #scheduledOns}.
+   */
+  private final Entry[] scheduledOnEntries;
+
+  private final Entry mostRecentUnscheduled;
+
+  private final Entry mostRecentCompletedSchedule;
+
+  /**
+   * Creates the index from the given builder.
+   *
+   * @param  converted  Converts each retained entry once, even when retained for multiple scheduled days
+   */
+  private <E> TaskLogIndex(
+      List<TaskLog.Entry> entries,
+      Builder<E> builder,
+      Map<E, Entry> converted,
+      Function<E, Entry> converter,
+      int[] mostRecentByStatus
+  ) {
+    this.entries = entries;
+    this.mostRecentByStatus = mostRecentByStatus;
+    int numScheduledOns = builder.byScheduledOn.size();
+    this.scheduledOns = new long[numScheduledOns];
+    this.scheduledOnEntries = new Entry[numScheduledOns];
+    int i = 0;
+    for (Map.Entry<Long, E> scheduledOnEntry : builder.byScheduledOn.entrySet()) {
+      scheduledOns[i] = scheduledOnEntry.getKey();
+      scheduledOnEntries[i] = converted.computeIfAbsent(scheduledOnEntry.getValue(), converter);
+      i++;
+    }
+    this.mostRecentUnscheduled = builder.unscheduled == null ? null
+        : converted.computeIfAbsent(builder.unscheduled, converter);
+    this.mostRecentCompletedSchedule = builder.completedSchedule == null ? null
+        : converted.computeIfAbsent(builder.completedSchedule, converter);
+  }
+
+  /**
+   * Creates the index from the loaded entries of a task log.
+   */
+  TaskLogIndex(List<TaskLog.Entry> entries) {
+    this(entries, build(entries), new IdentityHashMap<>(), Entry::new, getMostRecentByStatus(entries));
+  }
+
+  /**
+   * Creates the index read from a sidecar.
+   */
+  TaskLogIndex(long[] scheduledOns, Entry[] scheduledOnEntries, Entry mostRecentUnscheduled, Entry mostRecentCompletedSchedule) {
+    this.entries = null;
+    this.mostRecentByStatus = null;
+    this.scheduledOns = scheduledOns;
+    this.scheduledOnEntries = scheduledOnEntries;
+    this.mostRecentUnscheduled = mostRecentUnscheduled;
+    this.mostRecentCompletedSchedule = mostRecentCompletedSchedule;
+  }
+
+  private static Builder<TaskLog.Entry> build(List<TaskLog.Entry> entries) {
+    Builder<TaskLog.Entry> builder = new Builder<>();
+    for (TaskLog.Entry entry : entries) {
+      SortedSet<? extends Calendar> entryScheduledOns = entry.getScheduledOns();
+      long[] days = new long[entryScheduledOns.size()];
+      int i = 0;
+      for (Calendar scheduledOn : entryScheduledOns) {
+        days[i++] = EpochDay.of(scheduledOn);
+      }
+      builder.add(entry, entry.getStatus(), days);
+    }
+    return builder;
+  }
+
+  /**
+   * Gets this index without the entries it was built from, so they are not retained with the index.
+   * The most recent entry of each status is no longer available.
+   */
+  TaskLogIndex withoutEntries() {
+    return entries == null ? this
+        : new TaskLogIndex(scheduledOns, scheduledOnEntries, mostRecentUnscheduled, mostRecentCompletedSchedule);
+  }
+
+  private static int[] getMostRecentByStatus(List<TaskLog.Entry> entries) {
+    int[] byStatus = new int[statuses.length];
+    Arrays.fill(byStatus, -1);
+    for (int i = 0, size = entries.size(); i < size; i++) {
+      byStatus[entries.get(i).getStatus().ordinal()] = i;
+    }
+    return byStatus;
+  }
+
+  /**
+   * Checks if this index was built from the given list of entries.
+   */
+  boolean isIndexOf(List<TaskLog.Entry> entries) {
+    return this.entries == entries;
+  }
+
+  /**
+   * Checks if the given index is of the same entries as this index, either the same index or both built from the same
+   * list of loaded entries.
+   */
+  boolean isSameAs(TaskLogIndex other) {
+    return this == other || (entries != null && entries == other.entries);
+  }
+
+  /**
+   * Gets the most recent entry of any of the given statuses.
+   *
+   * @return  The entry or {@code null} when none
+   *
+   * @throws  IllegalStateException  when not built from loaded entries
+   */
+  TaskLog.Entry getMostRecentEntry(Set<TaskLog.Status> statuses) {
+    if (entries == null) {
+      throw new IllegalStateException("Entries not loaded");
+    }
+    int mostRecent = -1;
+    for (TaskLog.Status status : statuses) {
+      int index = mostRecentByStatus[status.ordinal()];
+      if (index > mostRecent) {
+        mostRecent = index;
+      }
+    }
+    return mostRecent == -1 ? null : entries.get(mostRecent);
+  }
+
+  /**
+   * Gets the scheduled days, sorted.  This array must not be modified.
+   */
+  long[] getScheduledOns() {
+    return scheduledOns;
+  }
+
+  /**
+   * Gets the most recent entry for each of {@link #getScheduledOns()}.  This array must not be modified.
+   */
+  Entry[] getScheduledOnEntries() {
+    return scheduledOnEntries;
+  }
+
+  /**
+   * Gets the most recent entry for the given scheduled day.
+   *
+   * @param  scheduledOn  The epoch day or {@link EpochDay#NONE} to find the most recent entry without any scheduled day
+   *
+   * @return  The entry or {@code null} when none
+   */
+  Entry getMostRecentEntry(long scheduledOn) {
+    if (scheduledOn == EpochDay.NONE) {
+      return mostRecentUnscheduled;
+    }
+    int i = Arrays.binarySearch(scheduledOns, scheduledOn);
+    return i < 0 ? null : scheduledOnEntries[i];
+  }
+
+  /**
+   * Checks if the most recent entry for the given scheduled day is a
+   * {@link TaskLog.Status#isCompletedSchedule() completed schedule} status.
+   */
+  boolean isCompleted(long scheduledOn) {
+    Entry entry = getMostRecentEntry(scheduledOn);
+    return entry != null && entry.getStatus().isCompletedSchedule();
+  }
+
+  /**
+   * Checks that every scheduled day before the given day that is completed in this index is still completed in the
+   * given newer index.
+   */
+  boolean isStillCompletedBefore(TaskLogIndex newer, long day) {
+    for (int i = 0; i < scheduledOns.length && scheduledOns[i] < day; i++) {
+      if (scheduledOnEntries[i].getStatus().isCompletedSchedule() && !newer.isCompleted(scheduledOns[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the most recent entry of a {@link TaskLog.Status#isCompletedSchedule() completed schedule} status.
+   *
+   * @return  The entry or {@code null} when none
+   */
+  Entry getMostRecentCompletedSchedule() {
+    return mostRecentCompletedSchedule;
+  }
+}
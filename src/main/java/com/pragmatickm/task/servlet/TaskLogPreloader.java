@@ -0,0 +1,162 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.pragmatickm.task.servlet;
+
+import com.aoapps.concurrent.Executor;
+import com.pragmatickm.task.model.Task;
+import com.semanticcms.core.servlet.SemanticCMS;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.ServletContext;
+
+/**
+ * Loads the task logs of all tasks in the root book in parallel, so the first requests after a restart do not wait
+ * on loading each task log in turn.
+ *
+ * <p>Capturing pages requires a request, so preloading does not begin at context start.  Instead, the tasks are
+ * enumerated by the first build of the root {@link TaskIndex}, during the first request that needs it, which captures
+ * every page at {@link com.semanticcms.core.servlet.CaptureLevel#META}.  The task logs are then loaded in the
+ * background on the SemanticCMS per-processor executor, in the same form used for status computation, with progress
+ * and timing logged.  At most one task log per processor is queued at a time, so the executor remains available to
+ * requests.</p>
+ *
+ * <p>This is enabled by setting the context init parameter {@link #ENABLED_INIT_PARAM} to {@code true}.  Preloading is
+ * only useful when the loaded indexes are retained, so it implies {@link TaskLogCache#INDEX_ONLY_INIT_PARAM}.  Task logs
+ * that are not directly accessible on the filesystem are not retained by that cache, and gain nothing from
+ * preloading.</p>
+ */
+final class TaskLogPreloader {
+
+  private static final Logger logger = Logger.getLogger(TaskLogPreloader.class.getName());
+
+  /** Make no instances. */
+  private TaskLogPreloader() {
+    throw new AssertionError();
+  }
+
+  /**
+   * The context init parameter that enables preloading task logs.
+   */
+  static final String ENABLED_INIT_PARAM = TaskLogPreloader.class.getName() + ".enabled";
+
+  /**
+   * The number of progress reports logged while preloading.
+   */
+  private static final int PROGRESS_REPORTS = 10;
+
+  /**
+   * The maximum number of task logs submitted to the executor at once.
+   */
+  private static final int MAX_CONCURRENCY = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Checks if preloading is enabled.
+   */
+  static boolean isEnabled(ServletContext servletContext) {
+    return InitParameters.getBoolean(servletContext, ENABLED_INIT_PARAM);
+  }
+
+  /**
+   * Begins loading the task logs of all tasks in the given index in the background, when enabled.
+   */
+  static void preload(ServletContext servletContext, TaskIndex index) {
+    if (isEnabled(servletContext)) {
+      Thread thread = new Thread(() -> preload(servletContext, index.getTasks()), TaskLogPreloader.class.getName());
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  private static void preload(ServletContext servletContext, List<Task> tasks) {
+    long startTime = System.currentTimeMillis();
+    int numTasks = tasks.size();
+    if (logger.isLoggable(Level.INFO)) {
+      logger.info("Preloading " + numTasks + " task logs");
+    }
+    TaskLogCache taskLogCache = TaskLogCache.getInstance(servletContext);
+    Executor executor = SemanticCMS.getInstance(servletContext).getExecutors().getPerProcessor();
+    Semaphore permits = new Semaphore(MAX_CONCURRENCY);
+    List<Future<?>> futures = new ArrayList<>(numTasks);
+    int completed = 0;
+    int failed = 0;
+    int nextReport = 1;
+    try {
+      for (int i = 0; i < numTasks || completed < numTasks; ) {
+        if (i < numTasks) {
+          Task task = tasks.get(i++);
+          permits.acquire();
+          try {
+            futures.add(executor.submit(() -> {
+              try {
+                return taskLogCache.getStatusIndex(task);
+              } finally {
+                permits.release();
+              }
+            }));
+          } catch (RuntimeException | Error e) {
+            permits.release();
+            throw e;
+          }
+        }
+        // Wait for the remaining only once all are submitted
+        while (completed < futures.size() && (i == numTasks || futures.get(completed).isDone())) {
+          try {
+            futures.get(completed).get();
+          } catch (ExecutionException e) {
+            failed++;
+            // The error will be reported when the status is requested
+            logger.log(Level.FINE, null, e);
+          }
+          completed++;
+          if (
+              completed < numTasks
+                  && completed * PROGRESS_REPORTS >= numTasks * nextReport
+          ) {
+            if (logger.isLoggable(Level.INFO)) {
+              logger.info("Preloaded " + completed + " of " + numTasks + " task logs in "
+                  + (System.currentTimeMillis() - startTime) + " ms");
+            }
+            nextReport = completed * PROGRESS_REPORTS / numTasks + 1;
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      for (Future<?> future : futures) {
+        future.cancel(false);
+      }
+      // Restore the interrupted status
+      Thread.currentThread().interrupt();
+      return;
+    }
+    if (logger.isLoggable(Level.INFO)) {
+      logger.info("Preloaded " + numTasks + " task logs in " + (System.currentTimeMillis() - startTime) + " ms"
+          + (failed == 0 ? "" : (", " + failed + " failed")));
+    }
+  }
+}
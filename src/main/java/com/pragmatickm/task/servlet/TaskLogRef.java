@@ -0,0 +1,95 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.pragmatickm.task.servlet;
+
+import java.util.Objects;
+
+/**
+ * Identifies the task log of a task by its page and task id, resolved as in
+ * {@link TaskUtil#getTaskLogInBook(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, java.lang.String, java.lang.String, java.lang.String)}.
+ *
+ * @see  TaskUtil#getTaskLogs(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, java.util.Collection)
+ */
+public final class TaskLogRef {
+
+  private final String book;
+  private final String page;
+  private final String taskId;
+
+  /**
+   * @param  book  The book or {@code null} for the current book
+   */
+  public TaskLogRef(String book, String page, String taskId) {
+    this.book = book;
+    this.page = Objects.requireNonNull(page);
+    this.taskId = Objects.requireNonNull(taskId);
+  }
+
+  /**
+   * A task log in the current book.
+   */
+  public TaskLogRef(String page, String taskId) {
+    this(null, page, taskId);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof TaskLogRef)) {
+      return false;
+    }
+    TaskLogRef other = (TaskLogRef) obj;
+    return
+        Objects.equals(book, other.book)
+            && page.equals(other.page)
+            && taskId.equals(other.taskId);
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = Objects.hashCode(book);
+    hash = hash * 31 + page.hashCode();
+    return hash * 31 + taskId.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return (book == null ? "" : book) + page + '#' + taskId;
+  }
+
+  /**
+   * Gets the book or {@code null} for the current book.
+   */
+  public String getBook() {
+    return book;
+  }
+
+  public String getPage() {
+    return page;
+  }
+
+  public String getTaskId() {
+    return taskId;
+  }
+}
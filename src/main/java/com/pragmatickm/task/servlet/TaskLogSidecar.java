@@ -0,0 +1,257 @@
+/*
+ * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of pragmatickm-task-servlet.
+ *
+ * pragmatickm-task-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * pragmatickm-task-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with pragmatickm-task-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.pragmatickm.task.servlet;
+
+import com.pragmatickm.task.model.TaskLog;
+import com.semanticcms.core.model.PageRef;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A compact binary file holding the {@link TaskLogIndex} of a task log XML file, so the task log need not be loaded
+ * again after a restart.
+ *
+ * <p>The sidecar records the last modified time and length of the XML file it was created from, and is regenerated
+ * whenever either differs.  It holds the status, "on" day, last scheduled day, and the offset of the comments of each
+ * retained entry, followed by the entry of each scheduled day.</p>
+ */
+final class TaskLogSidecar {
+
+  private static final Logger logger = Logger.getLogger(TaskLogSidecar.class.getName());
+
+  /** Make no instances. */
+  private TaskLogSidecar() {
+    throw new AssertionError();
+  }
+
+  /**
+   * The extension added to the path of the XML file.
+   */
+  static final String EXTENSION = ".idx";
+
+  private static final int MAGIC = 0x544c4958; // "TLIX"
+
+  /**
+   * The version of the format, which must be increased whenever the format or the way indexes are built changes, so
+   * sidecars written from a different index are regenerated.
+   */
+  private static final int VERSION = 2;
+
+  private static final TaskLog.Status[] statuses = TaskLog.Status.values();
+
+  /**
+   * Gets the index of the given task log XML file, reading the sidecar when up-to-date, otherwise loading the task log
+   * and regenerating the sidecar.
+   *
+   * @param  realFile  The file backing {@code xmlFile}
+   *
+   * @throws  IOException  when unable to load the task log
+   */
+  static TaskLogIndex getIndex(PageRef xmlFile, File realFile, File sidecarFile) throws IOException {
+    long xmlLastModified = realFile.lastModified();
+    if (xmlLastModified == 0) {
+      // Does not exist
+      return new TaskLogIndex(TaskLog.getTaskLog(xmlFile).getEntries()).withoutEntries();
+    }
+    long xmlLength = realFile.length();
+    if (sidecarFile.exists()) {
+      try {
+        TaskLogIndex index = read(sidecarFile, xmlLastModified, xmlLength);
+        if (index != null) {
+          return index;
+        }
+      } catch (IOException e) {
+        logger.log(Level.FINE, "Regenerating unreadable sidecar: " + sidecarFile, e);
+      }
+    }
+    TaskLogIndex index = new TaskLogIndex(TaskLog.getTaskLog(xmlFile).getEntries()).withoutEntries();
+    try {
+      write(index, sidecarFile, xmlLastModified, xmlLength);
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Unable to write sidecar: " + sidecarFile, e);
+    }
+    return index;
+  }
+
+  /**
+   * Reads a sidecar.
+   *
+   * @return  The index or {@code null} when the sidecar is out-of-date or from an incompatible version
+   */
+  private static TaskLogIndex read(File sidecarFile, long xmlLastModified, long xmlLength) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecarFile)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        return null;
+      }
+      if (in.readLong() != xmlLastModified || in.readLong() != xmlLength) {
+        return null;
+      }
+      int numStatuses = in.readInt();
+      if (numStatuses != statuses.length) {
+        return null;
+      }
+      for (TaskLog.Status status : statuses) {
+        if (!status.name().equals(in.readUTF())) {
+          return null;
+        }
+      }
+      byte[] comments = new byte[in.readInt()];
+      in.readFully(comments);
+      TaskLogIndex.Entry[] entries = new TaskLogIndex.Entry[in.readInt()];
+      for (int i = 0; i < entries.length; i++) {
+        TaskLog.Status status = statuses[in.readUnsignedByte()];
+        long on = in.readLong();
+        long lastScheduledOn = in.readLong();
+        int commentsOffset = in.readInt();
+        int commentsLength = in.readInt();
+        entries[i] = new TaskLogIndex.Entry(
+            status,
+            on,
+            lastScheduledOn,
+            commentsOffset == -1 ? null : new String(comments, commentsOffset, commentsLength, StandardCharsets.UTF_8)
+        );
+      }
+      TaskLogIndex.Entry mostRecentUnscheduled = readEntry(in, entries);
+      TaskLogIndex.Entry mostRecentCompletedSchedule = readEntry(in, entries);
+      int numScheduledOns = in.readInt();
+      long[] scheduledOns = new long[numScheduledOns];
+      TaskLogIndex.Entry[] scheduledOnEntries = new TaskLogIndex.Entry[numScheduledOns];
+      for (int i = 0; i < numScheduledOns; i++) {
+        scheduledOns[i] = in.readLong();
+        scheduledOnEntries[i] = readEntry(in, entries);
+      }
+      return new TaskLogIndex(scheduledOns, scheduledOnEntries, mostRecentUnscheduled, mostRecentCompletedSchedule);
+    } catch (ArrayIndexOutOfBoundsException | StringIndexOutOfBoundsException | NegativeArraySizeException e) {
+      throw new IOException("Corrupt sidecar: " + sidecarFile, e);
+    }
+  }
+
+  private static TaskLogIndex.Entry readEntry(DataInputStream in, TaskLogIndex.Entry[] entries) throws IOException {
+    int i = in.readInt();
+    return i == -1 ? null : entries[i];
+  }
+
+  /**
+   * Writes a sidecar, replacing any existing sidecar only once completely written.
+   */
+  private static void write(TaskLogIndex index, File sidecarFile, long xmlLastModified, long xmlLength) throws IOException {
+    // Number each distinct entry
+    Map<TaskLogIndex.Entry, Integer> numbers = new IdentityHashMap<>();
+    List<TaskLogIndex.Entry> entries = new ArrayList<>();
+    TaskLogIndex.Entry mostRecentUnscheduled = index.getMostRecentEntry(EpochDay.NONE);
+    TaskLogIndex.Entry mostRecentCompletedSchedule = index.getMostRecentCompletedSchedule();
+    TaskLogIndex.Entry[] scheduledOnEntries = index.getScheduledOnEntries();
+    for (TaskLogIndex.Entry entry : scheduledOnEntries) {
+      addEntry(numbers, entries, entry);
+    }
+    addEntry(numbers, entries, mostRecentUnscheduled);
+    addEntry(numbers, entries, mostRecentCompletedSchedule);
+    // Concatenate all comments
+    ByteArrayOutputStream comments = new ByteArrayOutputStream();
+    int[] commentsOffsets = new int[entries.size()];
+    int[] commentsLengths = new int[entries.size()];
+    for (int i = 0; i < commentsOffsets.length; i++) {
+      String entryComments = entries.get(i).getComments();
+      if (entryComments == null) {
+        commentsOffsets[i] = -1;
+      } else {
+        byte[] bytes = entryComments.getBytes(StandardCharsets.UTF_8);
+        commentsOffsets[i] = comments.size();
+        commentsLengths[i] = bytes.length;
+        comments.write(bytes);
+      }
+    }
+    File dir = sidecarFile.getParentFile();
+    if (dir != null) {
+      Files.createDirectories(dir.toPath());
+    }
+    File tempFile = File.createTempFile(sidecarFile.getName(), ".tmp", dir);
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(xmlLastModified);
+        out.writeLong(xmlLength);
+        out.writeInt(statuses.length);
+        for (TaskLog.Status status : statuses) {
+          out.writeUTF(status.name());
+        }
+        out.writeInt(comments.size());
+        comments.writeTo(out);
+        out.writeInt(entries.size());
+        for (int i = 0; i < commentsOffsets.length; i++) {
+          TaskLogIndex.Entry entry = entries.get(i);
+          out.writeByte(entry.getStatus().ordinal());
+          out.writeLong(entry.getOn());
+          out.writeLong(entry.getLastScheduledOn());
+          out.writeInt(commentsOffsets[i]);
+          out.writeInt(commentsLengths[i]);
+        }
+        writeEntry(out, numbers, mostRecentUnscheduled);
+        writeEntry(out, numbers, mostRecentCompletedSchedule);
+        long[] scheduledOns = index.getScheduledOns();
+        out.writeInt(scheduledOns.length);
+        for (int i = 0; i < scheduledOns.length; i++) {
+          out.writeLong(scheduledOns[i]);
+          writeEntry(out, numbers, scheduledOnEntries[i]);
+        }
+      }
+      try {
+        Files.move(tempFile.toPath(), sidecarFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tempFile.toPath(), sidecarFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tempFile.toPath());
+    }
+  }
+
+  private static void addEntry(Map<TaskLogIndex.Entry, Integer> numbers, List<TaskLogIndex.Entry> entries, TaskLogIndex.Entry entry) {
+    if (entry != null && !numbers.containsKey(entry)) {
+      numbers.put(entry, entries.size());
+      entries.add(entry);
+    }
+  }
+
+  private static void writeEntry(DataOutputStream out, Map<TaskLogIndex.Entry, Integer> numbers, TaskLogIndex.Entry entry) throws IOException {
+    out.writeInt(entry == null ? -1 : numbers.get(entry));
+  }
+}
@@ -1,6 +1,6 @@
 /*
  * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
- * Copyright (C) 2013, 2014, 2015, 2016, 2017, 2018, 2019, 2020, 2021, 2022, 2024, 2025  AO Industries, Inc.
+ * Copyright (C) 2013, 2014, 2015, 2016, 2017, 2018, 2019, 2020, 2021, 2022, 2024, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -24,12 +24,11 @@
 package com.pragmatickm.task.servlet;
 
 import com.aoapps.collections.AoCollections;
+import com.aoapps.concurrent.Executor;
 import com.aoapps.hodgepodge.schedule.Recurring;
 import com.aoapps.hodgepodge.util.Tuple2;
 import com.aoapps.lang.Strings;
 import com.aoapps.lang.concurrent.ExecutionExceptions;
-import com.aoapps.lang.exception.WrappedException;
-import com.aoapps.lang.util.CalendarUtils;
 import com.aoapps.lang.util.UnmodifiableCalendar;
 import com.aoapps.servlet.subrequest.HttpServletSubRequest;
 import com.aoapps.servlet.subrequest.HttpServletSubResponse;
@@ -56,21 +55,29 @@ import com.semanticcms.core.servlet.ConcurrencyCoordinator;
 import com.semanticcms.core.servlet.PageRefResolver;
 import com.semanticcms.core.servlet.SemanticCMS;
 import java.io.IOException;
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
-import java.util.GregorianCalendar;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.SortedSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -83,7 +90,7 @@ public final class TaskUtil {
     throw new AssertionError();
   }
 
-  public static TaskLog getTaskLogInBook(
+  private static PageRef getTaskLogXmlFile(
       ServletContext servletContext,
       HttpServletRequest request,
       String book,
@@ -99,8 +106,18 @@ public final class TaskUtil {
     if (pageRef.getBook() == null) {
       throw new IllegalArgumentException("Book not found: " + pageRef.getBookName());
     }
-    return TaskLog.getTaskLog(
-        TaskImpl.getTaskLogXmlFile(pageRef, taskId)
+    return TaskImpl.getTaskLogXmlFile(pageRef, taskId);
+  }
+
+  public static TaskLog getTaskLogInBook(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      String book,
+      String page,
+      String taskId
+  ) throws ServletException, IOException {
+    return TaskLogCache.getInstance(servletContext).getTaskLog(
+        getTaskLogXmlFile(servletContext, request, book, page, taskId)
     );
   }
 
@@ -119,39 +136,330 @@ public final class TaskUtil {
     );
   }
 
-  public static TaskLog.Entry getMostRecentEntry(TaskLog taskLog, String statuses) throws IOException {
-    String[] trimmed;
-    int size;
-    {
-      List<String> split = Strings.split(statuses, ','); // Split on comma only, because of "Nothing To Do" status having spaces
-      size = split.size();
-      trimmed = new String[size];
-      for (int i = 0; i < size; i++) {
-        trimmed[i] = split.get(i).trim();
+  /**
+   * Gets multiple task logs at once.  All pages are resolved first, then when there are multiple task logs and
+   * concurrent subrequests are enabled, the task logs are loaded concurrently.
+   *
+   * @return  The task logs, in the same order as {@code taskLogRefs}
+   */
+  public static List<TaskLog> getTaskLogs(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      Collection<? extends TaskLogRef> taskLogRefs
+  ) throws ServletException, IOException {
+    int size = taskLogRefs.size();
+    if (size == 0) {
+      return Collections.emptyList();
+    }
+    List<PageRef> xmlFiles = new ArrayList<>(size);
+    for (TaskLogRef taskLogRef : taskLogRefs) {
+      xmlFiles.add(
+          getTaskLogXmlFile(
+              servletContext,
+              request,
+              taskLogRef.getBook(),
+              taskLogRef.getPage(),
+              taskLogRef.getTaskId()
+          )
+      );
+    }
+    TaskLogCache taskLogCache = TaskLogCache.getInstance(servletContext);
+    if (
+        size > 1
+            && ConcurrencyCoordinator.useConcurrentSubrequests(request)
+    ) {
+      // Concurrent implementation
+      List<Callable<TaskLog>> concurrentTasks = new ArrayList<>(size);
+      for (PageRef xmlFile : xmlFiles) {
+        concurrentTasks.add(() -> {
+          TaskLog taskLog = taskLogCache.getTaskLog(xmlFile);
+          // Load the entries here, so they are parsed concurrently whether or not the task log is cached
+          taskLog.getEntries();
+          return taskLog;
+        });
+      }
+      try {
+        return Collections.unmodifiableList(
+            SemanticCMS.getInstance(servletContext).getExecutors().getPerProcessor().callAll(concurrentTasks)
+        );
+      } catch (InterruptedException e) {
+        // Restore the interrupted status
+        Thread.currentThread().interrupt();
+        throw new ServletException(e);
+      } catch (ExecutionException e) {
+        ExecutionExceptions.wrapAndThrow(e, IOException.class, IOException::new);
+        throw new ServletException(e);
+      }
+    } else {
+      // Sequential implementation
+      List<TaskLog> taskLogs = new ArrayList<>(size);
+      for (PageRef xmlFile : xmlFiles) {
+        taskLogs.add(taskLogCache.getTaskLog(xmlFile));
+      }
+      return Collections.unmodifiableList(taskLogs);
+    }
+  }
+
+  /**
+   * The maximum number of distinct status strings to cache in {@link #parseStatuses(java.lang.String)}.
+   */
+  private static final int PARSED_STATUSES_MAX_SIZE = 1000;
+
+  private static final ConcurrentMap<String, Set<TaskLog.Status>> parsedStatuses = new ConcurrentHashMap<>();
+
+  /**
+   * Parses a comma-separated list of status labels, case-insensitive, into a set of statuses that may be reused with
+   * {@link #getMostRecentEntry(javax.servlet.ServletContext, com.pragmatickm.task.model.TaskLog, java.util.Set)}.
+   * Labels not matching any status are ignored.  Results are cached.
+   *
+   * @return  The unmodifiable set of statuses
+   */
+  public static Set<TaskLog.Status> parseStatuses(String statuses) {
+    Set<TaskLog.Status> parsed = parsedStatuses.get(statuses);
+    if (parsed == null) {
+      Set<TaskLog.Status> matching = EnumSet.noneOf(TaskLog.Status.class);
+      TaskLog.Status[] values = TaskLog.Status.values();
+      for (String split : Strings.split(statuses, ',')) { // Split on comma only, because of "Nothing To Do" status having spaces
+        String trimmed = split.trim();
+        for (TaskLog.Status status : values) {
+          if (status.getLabel().equalsIgnoreCase(trimmed)) {
+            matching.add(status);
+          }
+        }
+      }
+      parsed = Collections.unmodifiableSet(matching);
+      if (parsedStatuses.size() < PARSED_STATUSES_MAX_SIZE) {
+        parsedStatuses.put(statuses, parsed);
       }
     }
+    return parsed;
+  }
+
+  /**
+   * Gets the most recent entry of any of the given comma-separated status labels.
+   *
+   * @see  #parseStatuses(java.lang.String)
+   * @see  #getMostRecentEntry(javax.servlet.ServletContext, com.pragmatickm.task.model.TaskLog, java.lang.String)
+   */
+  public static TaskLog.Entry getMostRecentEntry(TaskLog taskLog, String statuses) throws IOException {
+    return getMostRecentEntry(taskLog, parseStatuses(statuses));
+  }
+
+  /**
+   * Gets the most recent entry of any of the given statuses, scanning the entries from the most recent.
+   *
+   * @return  The entry or {@code null} when none
+   *
+   * @see  #parseStatuses(java.lang.String)
+   * @see  #getMostRecentEntry(javax.servlet.ServletContext, com.pragmatickm.task.model.TaskLog, java.util.Set)
+   */
+  public static TaskLog.Entry getMostRecentEntry(TaskLog taskLog, Set<TaskLog.Status> statuses) throws IOException {
     List<TaskLog.Entry> entries = taskLog.getEntries();
     for (int i = entries.size() - 1; i >= 0; i--) {
       TaskLog.Entry entry = entries.get(i);
-      String label = entry.getStatus().getLabel();
-      for (int j = 0; j < size; j++) {
-        if (label.equalsIgnoreCase(trimmed[j])) {
-          return entry;
-        }
+      if (statuses.contains(entry.getStatus())) {
+        return entry;
       }
     }
     return null;
   }
 
+  /**
+   * Gets the most recent entry of any of the given comma-separated status labels, answered from the index of the task
+   * log.
+   *
+   * @see  #parseStatuses(java.lang.String)
+   */
+  public static TaskLog.Entry getMostRecentEntry(
+      ServletContext servletContext,
+      TaskLog taskLog,
+      String statuses
+  ) throws IOException {
+    return getMostRecentEntry(servletContext, taskLog, parseStatuses(statuses));
+  }
+
+  /**
+   * Gets the most recent entry of any of the given statuses, answered from the index of the task log.  The index is
+   * built once for each loaded list of entries, so repeated lookups on an unchanged task log do not scan the entries.
+   *
+   * @return  The entry or {@code null} when none
+   *
+   * @see  #parseStatuses(java.lang.String)
+   */
+  public static TaskLog.Entry getMostRecentEntry(
+      ServletContext servletContext,
+      TaskLog taskLog,
+      Set<TaskLog.Status> statuses
+  ) throws IOException {
+    return TaskLogCache.getInstance(servletContext).getIndex(taskLog).getMostRecentEntry(statuses);
+  }
+
   private static final String GET_STATUS_CACHE_KEY = TaskUtil.class.getName() + ".getStatus";
 
-  @SuppressWarnings("unchecked")
-  private static Map<Task, StatusResult> getStatusCache(Cache cache) {
-    return cache.getAttribute(
+  /**
+   * Gets the per-request status cache for the given day.
+   * Statuses are cached separately for each day, so that statuses as of different dates may be used within the
+   * same request.  Statuses are keyed by {@link ElementRef}, since the tasks of the shared {@link TaskIndex} and those
+   * captured by the current request are distinct objects for the same task.
+   *
+   * @param  today  The epoch day of the current day
+   */
+  private static Map<ElementRef, StatusResult> getStatusCache(Cache cache, long today) {
+    @SuppressWarnings("unchecked")
+    Map<Long, Map<ElementRef, StatusResult>> statusCaches = cache.getAttribute(
         GET_STATUS_CACHE_KEY,
         Map.class,
         cache::newMap
     );
+    return statusCaches.computeIfAbsent(today, d -> cache.newMap());
+  }
+
+  private static final String STATUSES_IN_PROGRESS_CACHE_KEY = TaskUtil.class.getName() + ".getStatus.inProgress";
+
+  /**
+   * Gets the per-request statuses currently being computed for the given day.
+   *
+   * @param  today  The epoch day of the current day
+   */
+  private static Map<ElementRef, StatusComputation> getStatusesInProgress(Cache cache, long today) {
+    @SuppressWarnings("unchecked")
+    Map<Long, Map<ElementRef, StatusComputation>> inProgress = cache.getAttribute(
+        STATUSES_IN_PROGRESS_CACHE_KEY,
+        Map.class,
+        ConcurrentHashMap::new
+    );
+    return inProgress.computeIfAbsent(today, d -> new ConcurrentHashMap<>());
+  }
+
+  /**
+   * A status computation in progress, which other threads may wait for.
+   */
+  private static final class StatusComputation {
+
+    private final ElementRef elementRef;
+
+    /**
+     * The computation that required this one, if any.
+     */
+    private final StatusComputation parent;
+
+    private final CompletableFuture<StatusResult> future = new CompletableFuture<>();
+
+    /**
+     * The computations this one is currently waiting for.  There may be more than one when "Do Before" tasks are
+     * resolved concurrently.  All access synchronized on the map of computations in progress.
+     */
+    private final List<StatusComputation> waitingFor = new ArrayList<>();
+
+    private StatusComputation(ElementRef elementRef, StatusComputation parent) {
+      this.elementRef = elementRef;
+      this.parent = parent;
+    }
+
+    /**
+     * Checks if this computation is the given computation or any of its ancestors.
+     */
+    private boolean isAncestorOrSelf(StatusComputation computation) {
+      for (StatusComputation c = computation; c != null; c = c.parent) {
+        if (c == this) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Gets the path from an ancestor to the given computation, in "Do Before" order.
+     */
+    private static String getPath(StatusComputation computation, StatusComputation ancestor) {
+      StringBuilder path = new StringBuilder();
+      for (StatusComputation c = computation; c != null; c = c.parent) {
+        if (path.length() > 0) {
+          path.insert(0, " -> ");
+        }
+        path.insert(0, c.elementRef);
+        if (c == ancestor) {
+          break;
+        }
+      }
+      return path.toString();
+    }
+
+    /**
+     * Finds a chain of waiting computations from this computation back to the given waiter or any of its ancestors.
+     * A computation depends on every computation that is part of it, and on every computation any of those are
+     * waiting for, transitively.  Must be called while synchronized on {@code inProgress}.
+     *
+     * @return  The path of the cycle or {@code null} when waiting for this computation would not deadlock
+     */
+    private String findCycle(StatusComputation waiter, Map<ElementRef, StatusComputation> inProgress) {
+      // For each computation reached, the computation found waiting for it and the computation that one is part of
+      Map<StatusComputation, StatusComputation> waitedForBy = new IdentityHashMap<>();
+      Map<StatusComputation, StatusComputation> partOf = new IdentityHashMap<>();
+      List<StatusComputation> pending = new ArrayList<>();
+      pending.add(this);
+      while (!pending.isEmpty()) {
+        StatusComputation reached = pending.remove(pending.size() - 1);
+        if (reached.isAncestorOrSelf(waiter)) {
+          StringBuilder path = new StringBuilder();
+          for (StatusComputation c = reached; c != this; c = partOf.get(c)) {
+            path.insert(0, " -> " + getPath(waitedForBy.get(c), partOf.get(c)));
+          }
+          return getPath(waiter, reached) + path + " -> " + reached.elementRef;
+        }
+        for (StatusComputation other : inProgress.values()) {
+          if (reached.isAncestorOrSelf(other)) {
+            for (StatusComputation next : other.waitingFor) {
+              if (next != this && !waitedForBy.containsKey(next)) {
+                waitedForBy.put(next, other);
+                partOf.put(next, reached);
+                pending.add(next);
+              }
+            }
+          }
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Waits for this computation to complete.
+     *
+     * @param  waiter  The computation that is waiting, if any
+     * @param  inProgress  All computations currently in progress
+     *
+     * @throws  TaskException  when waiting would deadlock, which only happens on a "Do Before" cycle
+     */
+    private StatusResult await(
+        StatusComputation waiter,
+        Map<ElementRef, StatusComputation> inProgress
+    ) throws TaskException, ServletException, IOException {
+      if (waiter != null) {
+        synchronized (inProgress) {
+          // Waiting would deadlock when this computation depends on the waiter or any of its ancestors
+          String cycle = findCycle(waiter, inProgress);
+          if (cycle != null) {
+            throw new TaskException("doBefore cycle detected: " + cycle);
+          }
+          waiter.waitingFor.add(this);
+        }
+      }
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        // Restore the interrupted status
+        Thread.currentThread().interrupt();
+        throw new ServletException(e);
+      } catch (ExecutionException e) {
+        throw wrapExecutionException(e);
+      } finally {
+        if (waiter != null) {
+          synchronized (inProgress) {
+            waiter.waitingFor.remove(this);
+          }
+        }
+      }
+    }
   }
 
   /**
@@ -185,6 +493,13 @@ public final class TaskUtil {
    * </ol>
    *
    * <p>Status only available once frozen.</p>
+   *
+   * <p>Statuses are cached per request.  They may also be cached across requests by setting the context init parameter
+   * {@code com.pragmatickm.task.servlet.ApplicationStatusCache.size} to the maximum number of statuses to retain.</p>
+   *
+   * <p>The current day is determined by the system clock in the default time zone.</p>
+   *
+   * @see  #getStatus(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.pragmatickm.task.model.Task, java.time.Clock)
    */
   public static StatusResult getStatus(
       ServletContext servletContext,
@@ -214,111 +529,650 @@ public final class TaskUtil {
         response,
         task,
         cache,
-        getStatusCache(cache)
+        Clock.systemDefaultZone()
+    );
+  }
+
+  /**
+   * Gets the status of a task as of the current day of the given clock, in the default time zone.
+   * Use {@link Clock#fixed(java.time.Instant, java.time.ZoneId)} to get the status as of any specific date.
+   *
+   * @see  #getStatus(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.pragmatickm.task.model.Task)
+   */
+  public static StatusResult getStatus(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Task task,
+      Clock clock
+  ) throws TaskException, ServletException, IOException {
+    return getStatus(
+        servletContext,
+        request,
+        response,
+        task,
+        CacheFilter.getCache(request),
+        clock
+    );
+  }
+
+  /**
+   * Gets the status of a task as of the current day of the given clock, in the default time zone.
+   * Use {@link Clock#fixed(java.time.Instant, java.time.ZoneId)} to get the status as of any specific date.
+   *
+   * @see  #getStatus(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.pragmatickm.task.model.Task)
+   */
+  public static StatusResult getStatus(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Task task,
+      Cache cache,
+      Clock clock
+  ) throws TaskException, ServletException, IOException {
+    long today = EpochDay.today(clock);
+    return getStatus(
+        servletContext,
+        request,
+        response,
+        task,
+        cache,
+        getStatusCache(cache, today),
+        today
     );
   }
 
+  /**
+   * Gets the status of a task.
+   *
+   * @param  today  The epoch day of the current day
+   */
+  private static StatusResult getStatus(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Task task,
+      Cache cache,
+      Map<ElementRef, StatusResult> statusCache,
+      long today
+  ) throws TaskException, ServletException, IOException {
+    return getStatus(servletContext, request, response, task, cache, statusCache, today, null);
+  }
+
+  /**
+   * Gets the status of a task.  Only one thread computes the status of a given task at a time, while any other
+   * threads requesting the same task wait for the result.
+   *
+   * @param  today  The epoch day of the current day
+   * @param  parent  The computation that requires the status of this task, if any
+   */
   private static StatusResult getStatus(
       ServletContext servletContext,
       HttpServletRequest request,
       HttpServletResponse response,
       Task task,
       Cache cache,
-      Map<Task, StatusResult> statusCache
+      Map<ElementRef, StatusResult> statusCache,
+      long today,
+      StatusComputation parent
   ) throws TaskException, ServletException, IOException {
-    StatusResult sr = statusCache.get(task);
+    ElementRef elementRef = task.getElementRef();
+    StatusResult sr = statusCache.get(elementRef);
     if (sr == null) {
-      // TODO: Concurrency limiter here?
-      sr = doGetStatus(servletContext, request, response, task, cache, statusCache);
-      statusCache.put(task, sr);
+      if (isIterative(servletContext)) {
+        return getStatusIterative(servletContext, request, response, task, cache, statusCache, today);
+      }
+      for (StatusComputation ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+        if (ancestor.elementRef.equals(elementRef)) {
+          throw new TaskException("doBefore cycle detected: " + StatusComputation.getPath(parent, ancestor) + " -> " + elementRef);
+        }
+      }
+      Map<ElementRef, StatusComputation> inProgress = getStatusesInProgress(cache, today);
+      StatusComputation computation = new StatusComputation(elementRef, parent);
+      StatusComputation existing = inProgress.putIfAbsent(elementRef, computation);
+      if (existing != null) {
+        return existing.await(parent, inProgress);
+      }
+      try {
+        // May have been completed by another thread since checked above
+        sr = statusCache.get(elementRef);
+        if (sr == null) {
+          // Check the application-scoped cache, when enabled
+          ApplicationStatusCache applicationCache = ApplicationStatusCache.getInstance(servletContext);
+          ApplicationStatusCache.Key applicationKey;
+          if (applicationCache != null) {
+            applicationKey = applicationCache.getKey(elementRef, today);
+            if (applicationKey != null) {
+              sr = applicationCache.get(applicationKey);
+            }
+          } else {
+            applicationKey = null;
+          }
+          if (sr == null) {
+            // TODO: Concurrency limiter here?
+            Map<ElementRef, StatusResult> doBefores = applicationKey == null ? null : new LinkedHashMap<>();
+            sr = doGetStatus(servletContext, request, response, task, cache, statusCache, today, computation, doBefores);
+            if (applicationKey != null) {
+              applicationCache.put(applicationKey, sr, doBefores);
+            }
+          }
+          statusCache.put(elementRef, sr);
+        }
+        computation.future.complete(sr);
+      } catch (Throwable t) {
+        computation.future.completeExceptionally(t);
+        throw t;
+      } finally {
+        inProgress.remove(elementRef, computation);
+      }
     }
     return sr;
   }
 
-  // TODO: A way to push-up the schedule to the earliest date of something waiting for this task?
-  //       This would be similar for priority inheritence, but also affects the scheduled date considered for ordering.
-  // TODO: Support multiple schedules
-  private static StatusResult doGetStatus(
+  /**
+   * The context init parameter that, when {@code true}, selects iterative status evaluation.
+   *
+   * @see  #getStatusIterative(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.pragmatickm.task.model.Task, com.semanticcms.core.servlet.Cache, java.util.Map, long)
+   */
+  public static final String ITERATIVE_INIT_PARAM = TaskUtil.class.getName() + ".iterative";
+
+  private static boolean isIterative(ServletContext servletContext) {
+    return InitParameters.getBoolean(servletContext, ITERATIVE_INIT_PARAM);
+  }
+
+  /**
+   * Finds the task of a "Do Before" reference.
+   */
+  @FunctionalInterface
+  interface DoBeforeResolver {
+
+    /**
+     * Gets the task of the given "Do Before" reference.
+     *
+     * @throws  TaskException  when not found or not allowed to be referenced
+     */
+    Task getDoBefore(ElementRef doBeforeRef) throws TaskException, ServletException, IOException;
+  }
+
+  /**
+   * A task on the stack of {@link #getStatusIterative(javax.servlet.ServletContext, com.pragmatickm.task.model.Task, long, java.util.Map, com.pragmatickm.task.servlet.StatusStore, com.pragmatickm.task.servlet.TaskUtil.DoBeforeResolver)}.
+   */
+  private static final class StatusFrame {
+
+    private final Task task;
+    private final ElementRef elementRef;
+    private final ApplicationStatusCache.Key applicationKey;
+    private final Map<ElementRef, StatusResult> doBefores;
+    private final Iterator<ElementRef> doBeforeIter;
+    private ElementRef doBeforeRef;
+    private boolean allDoBeforesCompleted = true;
+
+    private StatusFrame(Task task, ElementRef elementRef, ApplicationStatusCache.Key applicationKey) {
+      this.task = task;
+      this.elementRef = elementRef;
+      this.applicationKey = applicationKey;
+      this.doBefores = applicationKey == null ? null : new LinkedHashMap<>();
+      this.doBeforeIter = task.getDoBefores().iterator();
+    }
+  }
+
+  /**
+   * Gets the status of a task without recursion.  The "Do Before" tasks are explored depth-first on an explicit stack,
+   * in the same order as the recursive implementation, and statuses are computed bottom-up as each task's "Do Before"
+   * tasks are resolved.  The stack depth is bounded by the number of tasks, and a "Do Before" cycle is reported with
+   * its path.
+   *
+   * <p>This is selected by setting the context init parameter {@link #ITERATIVE_INIT_PARAM} to {@code true}.
+   * All work is performed on the current thread.</p>
+   *
+   * @param  today  The epoch day of the current day
+   *
+   * @throws  TaskException  when a "Do Before" cycle is found
+   */
+  private static StatusResult getStatusIterative(
       ServletContext servletContext,
       HttpServletRequest request,
       HttpServletResponse response,
       Task task,
       Cache cache,
-      Map<Task, StatusResult> statusCache
+      Map<ElementRef, StatusResult> statusCache,
+      long today
   ) throws TaskException, ServletException, IOException {
-    UnmodifiableCalendar on = task.getOn();
-    Recurring recurring = task.getRecurring();
-    boolean relative = task.getRelative();
-    // Check if all dependencies are completed
-    boolean allDoBeforesCompleted = true;
-    // TODO: Concurrent getDoBefores?
-    for (ElementRef doBeforeRef : task.getDoBefores()) {
-      Page capturedPage = CapturePage.capturePage(
-          servletContext,
-          request,
-          response,
-          doBeforeRef.getPageRef(),
-          CaptureLevel.META,
-          cache
-      );
-      String taskId = doBeforeRef.getId();
-      Element elem = capturedPage.getElementsById().get(taskId);
-      if (elem == null) {
-        throw new TaskException("doBefore not found: " + doBeforeRef);
+    return getStatusIterative(
+        servletContext,
+        task,
+        today,
+        statusCache,
+        ApplicationStatusCache.getInstance(servletContext),
+        doBeforeRef -> getDoBefore(servletContext, request, response, doBeforeRef, cache)
+    );
+  }
+
+  /**
+   * Gets the status of a task without recursion, as
+   * {@link #getStatusIterative(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.pragmatickm.task.model.Task, com.semanticcms.core.servlet.Cache, java.util.Map, long)},
+   * but without requiring a request.
+   *
+   * @param  today  The epoch day of the current day
+   * @param  statusCache  The statuses already computed, to which each computed status is added
+   * @param  applicationCache  Where statuses are looked up and stored, if any
+   * @param  doBeforeResolver  Finds the task of each "Do Before" reference
+   *
+   * @throws  TaskException  when a "Do Before" cycle is found
+   */
+  static StatusResult getStatusIterative(
+      ServletContext servletContext,
+      Task task,
+      long today,
+      Map<ElementRef, StatusResult> statusCache,
+      StatusStore applicationCache,
+      DoBeforeResolver doBeforeResolver
+  ) throws TaskException, ServletException, IOException {
+    List<StatusFrame> stack = new ArrayList<>();
+    // The next task to resolve
+    Task next = task;
+    // The status most recently resolved, which is a "Do Before" of the top of the stack
+    StatusResult resolved = null;
+    while (true) {
+      if (next != null) {
+        ElementRef elementRef = next.getElementRef();
+        StatusResult sr = statusCache.get(elementRef);
+        ApplicationStatusCache.Key applicationKey = null;
+        if (sr == null && applicationCache != null) {
+          applicationKey = applicationCache.getKey(elementRef, today);
+          if (applicationKey != null) {
+            sr = applicationCache.get(applicationKey);
+            if (sr != null) {
+              statusCache.put(elementRef, sr);
+            }
+          }
+        }
+        if (sr == null) {
+          // Only resolve "Do Before" tasks when the status depends on them
+          sr = evaluateStatus(servletContext, next, today, null);
+          if (sr != null) {
+            validateDoBefores(next, doBeforeResolver);
+            if (applicationKey != null) {
+              applicationCache.put(applicationKey, sr, Collections.emptyMap());
+            }
+            statusCache.put(elementRef, sr);
+          }
+        }
+        if (sr != null) {
+          resolved = sr;
+        } else {
+          for (int i = stack.size() - 1; i >= 0; i--) {
+            if (stack.get(i).elementRef.equals(elementRef)) {
+              StringBuilder path = new StringBuilder("doBefore cycle detected: ");
+              for (int j = i, size = stack.size(); j < size; j++) {
+                path.append(stack.get(j).elementRef).append(" -> ");
+              }
+              throw new TaskException(path.append(elementRef).toString());
+            }
+          }
+          stack.add(new StatusFrame(next, elementRef, applicationKey));
+        }
+        next = null;
       }
-      if (!(elem instanceof Task)) {
-        throw new TaskException("doBefore \"" + taskId + "\" is not a task: " + elem.getClass().getName());
+      if (stack.isEmpty()) {
+        // Task was already cached
+        return resolved;
       }
-      if (capturedPage.getGeneratedIds().contains(taskId)) {
-        throw new TaskException("Not allowed to reference task by generated id, set an explicit id on the task: " + elem);
+      StatusFrame frame = stack.get(stack.size() - 1);
+      if (resolved != null) {
+        if (frame.doBefores != null) {
+          frame.doBefores.put(frame.doBeforeRef, resolved);
+        }
+        if (!resolved.isCompletedSchedule()) {
+          frame.allDoBeforesCompleted = false;
+        }
+        resolved = null;
       }
-      Task doBefore = (Task) elem;
-      StatusResult doBeforeStatus = getStatus(
-          servletContext,
-          request,
-          response,
-          doBefore,
-          cache,
-          statusCache
-      );
-      if (!doBeforeStatus.isCompletedSchedule()) {
-        allDoBeforesCompleted = false;
-        break;
+      if (frame.allDoBeforesCompleted && frame.doBeforeIter.hasNext()) {
+        // Resolve the next "Do Before"
+        frame.doBeforeRef = frame.doBeforeIter.next();
+        next = doBeforeResolver.getDoBefore(frame.doBeforeRef);
+      } else {
+        // All required "Do Before" resolved
+        stack.remove(stack.size() - 1);
+        StatusResult sr = evaluateStatus(servletContext, frame.task, today, frame.allDoBeforesCompleted);
+        if (frame.applicationKey != null) {
+          applicationCache.put(frame.applicationKey, sr, frame.doBefores);
+        }
+        statusCache.put(frame.elementRef, sr);
+        if (stack.isEmpty()) {
+          return sr;
+        }
+        resolved = sr;
       }
     }
-    final GregorianCalendar today = CalendarUtils.getToday();
-    final long todayMillis = today.getTimeInMillis();
-    TaskLog taskLog = task.getTaskLog();
-    if (on == null && recurring == null) {
-      // Non-scheduled task
-      TaskLog.Entry entry = taskLog.getMostRecentEntry(null);
-      if (entry != null) {
+  }
+
+  /**
+   * Resolves each "Do Before" reference of a task whose status does not depend on them, so invalid references are still
+   * reported.  Only the references are checked; the statuses of the "Do Before" tasks are not computed.
+   *
+   * @throws  TaskException  when any "Do Before" is not found or not allowed to be referenced
+   */
+  private static void validateDoBefores(
+      Task task,
+      DoBeforeResolver doBeforeResolver
+  ) throws TaskException, ServletException, IOException {
+    for (ElementRef doBeforeRef : task.getDoBefores()) {
+      doBeforeResolver.getDoBefore(doBeforeRef);
+    }
+  }
+
+  /**
+   * Captures the page of a "Do Before" task and gets the task.
+   */
+  private static Task getDoBefore(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      ElementRef doBeforeRef,
+      Cache cache
+  ) throws TaskException, ServletException, IOException {
+    Page capturedPage = CapturePage.capturePage(
+        servletContext,
+        request,
+        response,
+        doBeforeRef.getPageRef(),
+        CaptureLevel.META,
+        cache
+    );
+    String taskId = doBeforeRef.getId();
+    Element elem = capturedPage.getElementsById().get(taskId);
+    if (elem == null) {
+      throw new TaskException("doBefore not found: " + doBeforeRef);
+    }
+    if (!(elem instanceof Task)) {
+      throw new TaskException("doBefore \"" + taskId + "\" is not a task: " + elem.getClass().getName());
+    }
+    if (capturedPage.getGeneratedIds().contains(taskId)) {
+      throw new TaskException("Not allowed to reference task by generated id, set an explicit id on the task: " + elem);
+    }
+    return (Task) elem;
+  }
+
+  /**
+   * Maintains expected exception types while not losing stack trace.
+   *
+   * @return  The {@link ServletException} to throw when not a {@link TaskException} or {@link IOException}
+   */
+  private static ServletException wrapExecutionException(ExecutionException e) throws TaskException, IOException {
+    // TODO: Once pragmatickm-task-model is SNAPSHOT again: ExecutionExceptions.wrapAndThrow(e, TaskException.class, TaskException::new);
+    // TODO: Compatibility implementation using initCause:
+    ExecutionExceptions.wrapAndThrow(e, TaskException.class,
+        (message, ee) -> {
+          TaskException te = new TaskException(message);
+          te.initCause(ee);
+          return te;
+        }
+    );
+    ExecutionExceptions.wrapAndThrow(e, IOException.class, IOException::new);
+    return new ServletException(e);
+  }
+  /**
+   * Waits for all the given futures to complete, without interruption.  The results are not needed, so any failure is
+   * only added as suppressed to the exception already being thrown, if any.  The interrupted status is restored after
+   * waiting.
+   *
+   * @param  thrown  The exception already being thrown or {@code null} when none
+   */
+  private static void awaitAll(List<? extends Future<?>> futures, Throwable thrown) {
+    boolean interrupted = false;
+    for (Future<?> future : futures) {
+      while (true) {
+        try {
+          future.get();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException | CancellationException e) {
+          if (thrown != null) {
+            Throwable cause = e.getCause();
+            thrown.addSuppressed(cause == null ? e : cause);
+          }
+          break;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+
+  /**
+   * Computes the status of a task, first resolving the status of its "Do Before" tasks when the status depends on
+   * them.  When there are multiple "Do Before" tasks and concurrent subrequests are enabled, they are resolved concurrently.
+   * Once an incomplete "Do Before" is found, or on error, any remaining work not yet started is skipped and work in progress
+   * is waited for before returning.
+   *
+   * @param  today  The epoch day of the current day
+   * @param  computation  The computation of this task, which is the parent of the "Do Before" computations
+   * @param  doBefores  When non-null, is populated with the statuses of all "Do Before" tasks consulted
+   */
+  private static StatusResult doGetStatus(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Task task,
+      Cache cache,
+      Map<ElementRef, StatusResult> statusCache,
+      long today,
+      StatusComputation computation,
+      Map<ElementRef, StatusResult> doBefores
+  ) throws TaskException, ServletException, IOException {
+    // Only resolve "Do Before" tasks when the status depends on them
+    StatusResult sr = evaluateStatus(servletContext, task, today, null);
+    if (sr != null) {
+      validateDoBefores(task, doBeforeRef -> getDoBefore(servletContext, request, response, doBeforeRef, cache));
+      return sr;
+    }
+    // Check if all dependencies are completed
+    boolean allDoBeforesCompleted = true;
+    Set<ElementRef> doBeforeRefs = task.getDoBefores();
+    int numDoBefores = doBeforeRefs.size();
+    if (
+        numDoBefores > 1
+            && ConcurrencyCoordinator.useConcurrentSubrequests(request)
+    ) {
+      // Concurrent implementation
+      List<ElementRef> refs = new ArrayList<>(doBeforeRefs);
+      List<Future<StatusResult>> futures = new ArrayList<>(numDoBefores);
+      // Set once the results are no longer needed, so work not yet started is skipped
+      final AtomicBoolean skip = new AtomicBoolean();
+      {
+        final HttpServletRequest threadSafeReq = new UnmodifiableCopyHttpServletRequest(request);
+        final HttpServletResponse threadSafeResp = new UnmodifiableCopyHttpServletResponse(response);
+        final TempFileContext tempFileContext = TempFileContextEE.get(request);
+        Executor executor = SemanticCMS.getInstance(servletContext).getExecutors().getPerProcessor();
+        for (final ElementRef doBeforeRef : refs) {
+          futures.add(executor.submit(() -> {
+            if (skip.get()) {
+              return null;
+            }
+            HttpServletRequest subrequest = new HttpServletSubRequest(threadSafeReq);
+            HttpServletResponse subresponse = new HttpServletSubResponse(threadSafeResp, tempFileContext);
+            return getStatus(
+                servletContext,
+                subrequest,
+                subresponse,
+                getDoBefore(servletContext, subrequest, subresponse, doBeforeRef, cache),
+                cache,
+                statusCache,
+                today,
+                computation
+            );
+          }));
+        }
+      }
+      // Results are consumed in order, so the first incomplete or error is the same as the sequential implementation
+      int consumed = 0;
+      Throwable thrown = null;
+      try {
+        while (consumed < numDoBefores) {
+          StatusResult doBeforeStatus;
+          try {
+            doBeforeStatus = futures.get(consumed++).get();
+          } catch (InterruptedException e) {
+            // Restore the interrupted status
+            Thread.currentThread().interrupt();
+            throw new ServletException(e);
+          } catch (ExecutionException e) {
+            throw wrapExecutionException(e);
+          }
+          if (doBefores != null) {
+            doBefores.put(refs.get(consumed - 1), doBeforeStatus);
+          }
+          if (!doBeforeStatus.isCompletedSchedule()) {
+            allDoBeforesCompleted = false;
+            break;
+          }
+        }
+      } catch (Throwable t) {
+        thrown = t;
+        throw t;
+      } finally {
+        // Skip any remaining work not yet started, then wait for work in progress so nothing is left running on
+        // behalf of this request once it returns.  Completed work is still cached for other tasks.
+        skip.set(true);
+        awaitAll(futures.subList(consumed, numDoBefores), thrown);
+      }
+    } else {
+      // Sequential implementation
+      for (ElementRef doBeforeRef : doBeforeRefs) {
+        StatusResult doBeforeStatus = getStatus(
+            servletContext,
+            request,
+            response,
+            getDoBefore(servletContext, request, response, doBeforeRef, cache),
+            cache,
+            statusCache,
+            today,
+            computation
+        );
+        if (doBefores != null) {
+          doBefores.put(doBeforeRef, doBeforeStatus);
+        }
+        if (!doBeforeStatus.isCompletedSchedule()) {
+          allDoBeforesCompleted = false;
+          break;
+        }
+      }
+    }
+    return evaluateStatus(servletContext, task, today, allDoBeforesCompleted);
+  }
+
+  /**
+   * Creates the status for an entry marked with "Progress" on or after today, which will be moved to the future list.
+   *
+   * @param  date  The epoch day or {@link EpochDay#NONE} for no date
+   */
+  private static StatusResult newFutureProgress(long today, TaskLogIndex.Entry entry, long entryOn, long date) {
+    return new StatusResult(
+        StatusResult.Style.getStyle(TaskLog.Status.PROGRESS),
+        entryOn == today
+            ? "Progress Today"
+            : ("Progress on " + EpochDay.format(entryOn)),
+        entry.getComments(),
+        false,
+        false,
+        true,
+        date
+    );
+  }
+
+  /**
+   * The task log statuses that result in the same {@link StatusResult} regardless of the status of "Do Before" tasks.
+   */
+  private static final Set<TaskLog.Status> INDEPENDENT_OF_DO_BEFORES;
+
+  static {
+    Set<TaskLog.Status> independent = EnumSet.noneOf(TaskLog.Status.class);
+    for (TaskLog.Status status : TaskLog.Status.values()) {
+      if (
+          status.isCompletedSchedule()
+              && StatusResult.Style.getStyle(status) == StatusResult.Style.getStyleDoBefore(status)
+              && status.getLabel().equals(status.getLabelDoBefore())
+      ) {
+        independent.add(status);
+      }
+    }
+    INDEPENDENT_OF_DO_BEFORES = independent;
+  }
+
+  private static boolean isIndependentOfDoBefores(TaskLog.Status status) {
+    return INDEPENDENT_OF_DO_BEFORES.contains(status);
+  }
+
+  // TODO: A way to push-up the schedule to the earliest date of something waiting for this task?
+  //       This would be similar for priority inheritence, but also affects the scheduled date considered for ordering.
+  // TODO: Support multiple schedules
+  /**
+   * Evaluates the status of a task once the status of its "Do Before" tasks are known.
+   * All dates are compared as epoch days, and no calendars are created.
+   *
+   * <p>The "Do Before" tasks only need to be resolved when the result depends on them.  Call first with
+   * {@code allDoBeforesCompleted} of {@code null}, and only when {@code null} is returned resolve the "Do Before" tasks
+   * and call again.</p>
+   *
+   * @param  today  The epoch day of the current day
+   * @param  allDoBeforesCompleted  Whether all "Do Before" tasks are completed or {@code null} when not yet known
+   *
+   * @return  The status or {@code null} when {@code allDoBeforesCompleted} is {@code null} and the status depends on it
+   */
+  static StatusResult evaluateStatus(
+      ServletContext servletContext,
+      Task task,
+      long today,
+      Boolean allDoBeforesCompleted
+  ) throws TaskException, IOException {
+    UnmodifiableCalendar on = task.getOn();
+    Recurring recurring = task.getRecurring();
+    boolean relative = task.getRelative();
+    TaskLogIndex index = TaskLogCache.getInstance(servletContext).getStatusIndex(task);
+    if (on == null && recurring == null) {
+      // Non-scheduled task
+      TaskLogIndex.Entry entry = index.getMostRecentEntry(EpochDay.NONE);
+      if (entry != null) {
         TaskLog.Status entryStatus = entry.getStatus();
         if (entryStatus == TaskLog.Status.PROGRESS) {
           // If marked with "Progress" on or after today, will be moved to the future list
-          long entryOnMillis = entry.getOn().getTimeInMillis();
-          boolean future = entryOnMillis >= todayMillis;
+          long entryOn = entry.getOn();
+          boolean future = entryOn >= today;
+          if (!future && allDoBeforesCompleted == null) {
+            return null;
+          }
           return new StatusResult(
               StatusResult.Style.getStyle(TaskLog.Status.PROGRESS),
-              entryOnMillis == todayMillis
+              entryOn == today
                   ? "Progress Today"
-                  : ("Progress on " + CalendarUtils.formatDate(entry.getOn())),
+                  : ("Progress on " + EpochDay.format(entryOn)),
               entry.getComments(),
               false,
               !future && allDoBeforesCompleted,
               future,
-              null
+              EpochDay.NONE
           );
         } else {
+          if (allDoBeforesCompleted == null && !isIndependentOfDoBefores(entryStatus)) {
+            return null;
+          }
           return new StatusResult(
               entryStatus,
               entry.getComments(),
-              allDoBeforesCompleted,
+              allDoBeforesCompleted == null || allDoBeforesCompleted,
               false,
-              null
+              EpochDay.NONE
           );
         }
       }
+      if (allDoBeforesCompleted == null) {
+        return null;
+      }
       if (allDoBeforesCompleted) {
         return new StatusResult(
             StatusResult.Style.NEW,
@@ -327,7 +1181,7 @@ public final class TaskUtil {
             false,
             true,
             false,
-            null
+            EpochDay.NONE
         );
       } else {
         return new StatusResult(
@@ -337,67 +1191,66 @@ public final class TaskUtil {
             false,
             false,
             false,
-            null
+            EpochDay.NONE
         );
       }
     } else if (on != null && recurring == null) {
       // Scheduled, non-recurring task
-      TaskLog.Entry entry = taskLog.getMostRecentEntry(on);
+      final long onDay = EpochDay.of(on);
+      TaskLogIndex.Entry entry = index.getMostRecentEntry(onDay);
       TaskLog.Status entryStatus = entry == null ? null : entry.getStatus();
       if (entryStatus != null) {
         assert entry != null;
         if (entryStatus.isCompletedSchedule()) {
+          if (allDoBeforesCompleted == null && !isIndependentOfDoBefores(entryStatus)) {
+            return null;
+          }
           return new StatusResult(
               entryStatus,
               entry.getComments(),
-              allDoBeforesCompleted,
+              allDoBeforesCompleted == null || allDoBeforesCompleted,
               false,
-              on
+              onDay
           );
         } else if (entryStatus == TaskLog.Status.PROGRESS) {
-          long entryOnMillis = entry.getOn().getTimeInMillis();
-          if (entryOnMillis >= todayMillis) {
-            // If marked with "Progress" on or after today, will be moved to the future list
-            return new StatusResult(
-                StatusResult.Style.getStyle(TaskLog.Status.PROGRESS),
-                entryOnMillis == todayMillis
-                    ? "Progress Today"
-                    : ("Progress on " + CalendarUtils.formatDate(entry.getOn())),
-                entry.getComments(),
-                false,
-                false,
-                true,
-                on
-            );
+          long entryOn = entry.getOn();
+          if (entryOn >= today) {
+            return newFutureProgress(today, entry, entryOn, onDay);
           }
         }
       }
       // Past
-      if (on.before(today)) {
+      if (onDay < today) {
+        if (allDoBeforesCompleted == null) {
+          return null;
+        }
         if (allDoBeforesCompleted) {
           return new StatusResult(
               StatusResult.Style.LATE,
-              "Late " + CalendarUtils.formatDate(on),
+              "Late " + EpochDay.format(onDay),
               entry != null ? entry.getComments() : null,
               false,
               true,
               false,
-              on
+              onDay
           );
         } else {
           return new StatusResult(
               StatusResult.Style.LATE_WAITING_DO_AFTER,
-              "Late " + CalendarUtils.formatDate(on) + " waiting for \"Do Before\"",
+              "Late " + EpochDay.format(onDay) + " waiting for \"Do Before\"",
               entry != null ? entry.getComments() : null,
               false,
               false,
               false,
-              on
+              onDay
           );
         }
       }
       // Present
-      if (on.getTimeInMillis() == todayMillis) {
+      if (onDay == today) {
+        if (allDoBeforesCompleted == null) {
+          return null;
+        }
         if (allDoBeforesCompleted) {
           return new StatusResult(
               StatusResult.Style.DUE_TODAY,
@@ -406,7 +1259,7 @@ public final class TaskUtil {
               false,
               true,
               false,
-              on
+              onDay
           );
         } else {
           return new StatusResult(
@@ -416,33 +1269,36 @@ public final class TaskUtil {
               false,
               false,
               false,
-              on
+              onDay
           );
         }
       }
       // Future
       if (entryStatus != null) {
         assert entry != null;
+        if (allDoBeforesCompleted == null && !isIndependentOfDoBefores(entryStatus)) {
+          return null;
+        }
         return new StatusResult(
             entryStatus,
             entry.getComments(),
-            allDoBeforesCompleted,
+            allDoBeforesCompleted == null || allDoBeforesCompleted,
             !entryStatus.isCompletedSchedule(),
-            on
+            onDay
         );
       }
       return new StatusResult(
           StatusResult.Style.IN_FUTURE,
-          "Waiting until " + CalendarUtils.formatDate(on),
+          "Waiting until " + EpochDay.format(onDay),
           null,
           false, // Was true, but if never done and waiting for future, it isn't completed
           false,
           true,
-          on
+          onDay
       );
     } else {
       // Recurring task (possibly with null "on" date)
-      final Calendar firstIncomplete;
+      final long firstIncomplete;
       if (relative) {
         // TODO: When "on" is set today because new task never completed, the status
         //       should become the highest priority, and the assignments should be to
@@ -450,66 +1306,61 @@ public final class TaskUtil {
         //       tasks are remaining unfinished due to perpetual "Low" initial priority.
 
         // Will use "on" or today if no completed tasklog entry
-        Calendar recurringFrom = (on != null) ? on : today;
+        final long onDay = EpochDay.of(on);
+        long recurringFrom = (on != null) ? onDay : today;
         // Schedule from most recent completed tasklog entry
-        List<TaskLog.Entry> entries = taskLog.getEntries();
-        for (int i = entries.size() - 1; i >= 0; i--) {
-          TaskLog.Entry entry = entries.get(i);
-          if (entry.getStatus().isCompletedSchedule()) {
-            Calendar completedOn = entry.getOn();
-            SortedSet<? extends Calendar> scheduledOns = entry.getScheduledOns();
-            // String checkResult = recurring.checkScheduleFrom(completedOn, "relative");
-            // if (checkResult != null) {
-            //   throw new TaskException(checkResult);
-            // }
-            Iterator<Calendar> recurringIter = recurring.getScheduleIterator(completedOn);
-            // Find the first date that is after both the completedOn and scheduledOn
-            do {
-              recurringFrom = recurringIter.next();
-            } while (
-                recurringFrom.getTimeInMillis() <= completedOn.getTimeInMillis()
-                    || (!scheduledOns.isEmpty() && recurringFrom.getTimeInMillis() <= scheduledOns.last().getTimeInMillis())
-            );
-            break;
-          }
+        TaskLogIndex.Entry entry = index.getMostRecentCompletedSchedule();
+        if (entry != null) {
+          long completedOnDay = entry.getOn();
+          Calendar completedOn = EpochDay.toCalendar(completedOnDay);
+          long lastScheduledOn = entry.getLastScheduledOn();
+          // String checkResult = recurring.checkScheduleFrom(completedOn, "relative");
+          // if (checkResult != null) {
+          //   throw new TaskException(checkResult);
+          // }
+          Iterator<Calendar> recurringIter = recurring.getScheduleIterator(completedOn);
+          // Find the first date that is after both the completedOn and scheduledOn
+          do {
+            recurringFrom = EpochDay.of(recurringIter.next());
+          } while (
+              recurringFrom <= completedOnDay
+                  || (lastScheduledOn != EpochDay.NONE && recurringFrom <= lastScheduledOn)
+          );
         }
         // If "on" is after the determined recurringFrom, use "on"
-        if (on != null && on.getTimeInMillis() > recurringFrom.getTimeInMillis()) {
-          recurringFrom = on;
+        if (on != null && onDay > recurringFrom) {
+          recurringFrom = onDay;
         }
         firstIncomplete = recurringFrom;
       } else {
         if (on == null) {
           throw new TaskException("\"on\" date must be provided for non-relative recurring tasks");
         }
-        firstIncomplete = taskLog.getFirstIncompleteScheduledOn(on, recurring);
+        firstIncomplete = ScheduleCheckpoints.getInstance(servletContext).getFirstIncompleteScheduledOn(
+            task.getElementRef(),
+            index,
+            on,
+            recurring
+        );
       }
-      if (firstIncomplete.before(today)) {
-        TaskLog.Entry entry = taskLog.getMostRecentEntry(firstIncomplete);
+      if (firstIncomplete < today) {
+        TaskLogIndex.Entry entry = index.getMostRecentEntry(firstIncomplete);
         if (entry != null) {
           TaskLog.Status entryStatus = entry.getStatus();
           if (entryStatus == TaskLog.Status.PROGRESS) {
-            long entryOnMillis = entry.getOn().getTimeInMillis();
-            if (entryOnMillis >= todayMillis) {
-              // If marked with "Progress" on or after today, will be moved to the future list
-              return new StatusResult(
-                  StatusResult.Style.getStyle(TaskLog.Status.PROGRESS),
-                  entryOnMillis == todayMillis
-                      ? "Progress Today"
-                      : ("Progress on " + CalendarUtils.formatDate(entry.getOn())),
-                  entry.getComments(),
-                  false,
-                  false,
-                  true,
-                  firstIncomplete
-              );
+            long entryOn = entry.getOn();
+            if (entryOn >= today) {
+              return newFutureProgress(today, entry, entryOn, firstIncomplete);
             }
           }
         }
+        if (allDoBeforesCompleted == null) {
+          return null;
+        }
         if (allDoBeforesCompleted) {
           return new StatusResult(
               StatusResult.Style.LATE,
-              "Late " + CalendarUtils.formatDate(firstIncomplete),
+              "Late " + EpochDay.format(firstIncomplete),
               entry != null ? entry.getComments() : null,
               false,
               true,
@@ -519,7 +1370,7 @@ public final class TaskUtil {
         } else {
           return new StatusResult(
               StatusResult.Style.LATE_WAITING_DO_AFTER,
-              "Late " + CalendarUtils.formatDate(firstIncomplete) + " waiting for \"Do Before\"",
+              "Late " + EpochDay.format(firstIncomplete) + " waiting for \"Do Before\"",
               entry != null ? entry.getComments() : null,
               false,
               false,
@@ -528,28 +1379,20 @@ public final class TaskUtil {
           );
         }
       }
-      if (firstIncomplete.getTimeInMillis() == todayMillis) {
-        TaskLog.Entry entry = taskLog.getMostRecentEntry(firstIncomplete);
+      if (firstIncomplete == today) {
+        TaskLogIndex.Entry entry = index.getMostRecentEntry(firstIncomplete);
         if (entry != null) {
           TaskLog.Status entryStatus = entry.getStatus();
           if (entryStatus == TaskLog.Status.PROGRESS) {
-            long entryOnMillis = entry.getOn().getTimeInMillis();
-            if (entryOnMillis >= todayMillis) {
-              // If marked with "Progress" on or after today, will be moved to the future list
-              return new StatusResult(
-                  StatusResult.Style.getStyle(TaskLog.Status.PROGRESS),
-                  entryOnMillis == todayMillis
-                      ? "Progress Today"
-                      : ("Progress on " + CalendarUtils.formatDate(entry.getOn())),
-                  entry.getComments(),
-                  false,
-                  false,
-                  true,
-                  firstIncomplete
-              );
+            long entryOn = entry.getOn();
+            if (entryOn >= today) {
+              return newFutureProgress(today, entry, entryOn, firstIncomplete);
             }
           }
         }
+        if (allDoBeforesCompleted == null) {
+          return null;
+        }
         if (allDoBeforesCompleted) {
           return new StatusResult(
               StatusResult.Style.DUE_TODAY,
@@ -574,7 +1417,7 @@ public final class TaskUtil {
       }
       return new StatusResult(
           StatusResult.Style.IN_FUTURE,
-          "Waiting until " + CalendarUtils.formatDate(firstIncomplete),
+          "Waiting until " + EpochDay.format(firstIncomplete),
           null,
           true,
           false,
@@ -599,18 +1442,62 @@ public final class TaskUtil {
     );
   }
 
+  public static Map<Task, StatusResult> getMultipleStatuses(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Collection<? extends Task> tasks,
+      Cache cache
+  ) throws TaskException, ServletException, IOException {
+    return getMultipleStatuses(
+        servletContext,
+        request,
+        response,
+        tasks,
+        cache,
+        Clock.systemDefaultZone()
+    );
+  }
+
+  /**
+   * Gets the status of multiple tasks as of the current day of the given clock, in the default time zone.
+   * Use {@link Clock#fixed(java.time.Instant, java.time.ZoneId)} to get the statuses as of any specific date.
+   */
+  public static Map<Task, StatusResult> getMultipleStatuses(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Collection<? extends Task> tasks,
+      Clock clock
+  ) throws TaskException, ServletException, IOException {
+    return getMultipleStatuses(
+        servletContext,
+        request,
+        response,
+        tasks,
+        CacheFilter.getCache(request),
+        clock
+    );
+  }
+
+  /**
+   * Gets the status of multiple tasks as of the current day of the given clock, in the default time zone.
+   * Use {@link Clock#fixed(java.time.Instant, java.time.ZoneId)} to get the statuses as of any specific date.
+   */
   public static Map<Task, StatusResult> getMultipleStatuses(
       final ServletContext servletContext,
       HttpServletRequest request,
       HttpServletResponse response,
       Collection<? extends Task> tasks,
-      final Cache cache
+      final Cache cache,
+      Clock clock
   ) throws TaskException, ServletException, IOException {
     int size = tasks.size();
     if (size == 0) {
       return Collections.emptyMap();
     } else {
-      final Map<Task, StatusResult> statusCache = getStatusCache(cache);
+      final long today = EpochDay.today(clock);
+      final Map<ElementRef, StatusResult> statusCache = getStatusCache(cache, today);
       if (size == 1) {
         Task task = tasks.iterator().next();
         return Collections.singletonMap(
@@ -621,14 +1508,15 @@ public final class TaskUtil {
                 response,
                 task,
                 cache,
-                statusCache
+                statusCache,
+                today
             )
         );
       } else {
         Map<Task, StatusResult> results = AoCollections.newLinkedHashMap(size);
         List<Task> notCached = null; // Created when first needed
         for (Task task : tasks) {
-          StatusResult cached = statusCache.get(task);
+          StatusResult cached = statusCache.get(task.getElementRef());
           // Add entry even if null to set ordering, replacing this value later will not alter order
           results.put(task, cached);
           if (cached == null) {
@@ -662,7 +1550,8 @@ public final class TaskUtil {
                       subresponse,
                       task,
                       cache,
-                      statusCache
+                      statusCache,
+                      today
                   );
                 });
               }
@@ -675,18 +1564,7 @@ public final class TaskUtil {
               Thread.currentThread().interrupt();
               throw new ServletException(e);
             } catch (ExecutionException e) {
-              // Maintain expected exception types while not losing stack trace
-              // TODO: Once pragmatickm-task-model is SNAPSHOT again: ExecutionExceptions.wrapAndThrow(e, TaskException.class, TaskException::new);
-              // TODO: Compatibility implementation using initCause:
-              ExecutionExceptions.wrapAndThrow(e, TaskException.class,
-                  (message, ee) -> {
-                    TaskException te = new TaskException(message);
-                    te.initCause(ee);
-                    return te;
-                  }
-              );
-              ExecutionExceptions.wrapAndThrow(e, IOException.class, IOException::new);
-              throw new ServletException(e);
+              throw wrapExecutionException(e);
             }
             for (int i = 0; i < notCachedSize; i++) {
               results.put(
@@ -705,7 +1583,8 @@ public final class TaskUtil {
                       response,
                       task,
                       cache,
-                      statusCache
+                      statusCache,
+                      today
                   )
               );
             }
@@ -719,8 +1598,8 @@ public final class TaskUtil {
 
   /**
    * Finds all tasks that must be done after this task.
-   * This requires a capture of the entire page tree
-   * meta data to find any task that has a doBefore pointing to this task.
+   * This is resolved from an application-wide index of the entire page tree
+   * meta data, which is built on first use and rebuilt when any page is modified.
    */
   public static List<Task> getDoAfters(
       ServletContext servletContext,
@@ -728,42 +1607,13 @@ public final class TaskUtil {
       HttpServletResponse response,
       Task task
   ) throws ServletException, IOException {
-    final String taskId = task.getId();
-    final Page taskPage = task.getPage();
-    final List<Task> doAfters = new ArrayList<>();
-    CapturePage.traversePagesDepthFirst(
-        servletContext,
-        request,
-        response,
-        SemanticCMS.getInstance(servletContext).getRootBook().getContentRoot(),
-        CaptureLevel.META,
-        (Page page, int depth) -> {
-          for (Element element : page.getElements()) {
-            if (element instanceof Task) {
-              Task pageTask = (Task) element;
-              for (ElementRef doBefore : pageTask.getDoBefores()) {
-                if (
-                    doBefore.getPageRef().equals(taskPage.getPageRef())
-                        && doBefore.getId().equals(taskId)
-                ) {
-                  doAfters.add(pageTask);
-                }
-              }
-            }
-          }
-          return null;
-        },
-        Page::getChildRefs,
-        childPage -> childPage.getBook() != null,
-        null
-    );
-    return Collections.unmodifiableList(doAfters);
+    return TaskIndex.getRootIndex(servletContext, request, response).getDoAfters(task.getElementRef());
   }
 
   /**
    * Finds all tasks that must be done after each of the provided tasks.
-   * This requires a capture of the entire page tree meta data
-   * to find any task that has a doBefore pointing to each task.
+   * This is resolved from an application-wide index of the entire page tree
+   * meta data, which is built on first use and rebuilt when any page is modified.
    *
    * @return  The map of doAfters, in the same iteration order as the provided
    *          tasks.  If no doAfters for a given task, will contain an empty list.
@@ -784,69 +1634,21 @@ public final class TaskUtil {
           getDoAfters(servletContext, request, response, task)
       );
     } else {
-      // Fill with empty lists, this sets the iteration order, too
+      TaskIndex index = TaskIndex.getRootIndex(servletContext, request, response);
+      // This sets the iteration order, too
       final Map<Task, List<Task>> results = AoCollections.newLinkedHashMap(size);
-      // Build map from ElementRef back to Task, for fast lookup during traversal
-      final Map<ElementRef, Task> tasksByElementRef = AoCollections.newHashMap(size);
-      {
-        List<Task> emptyList = Collections.emptyList();
-        for (Task task : tasks) {
-          if (results.put(task, emptyList) != null) {
-            throw new AssertionError();
-          }
-          if (tasksByElementRef.put(task.getElementRef(), task) != null) {
-            throw new AssertionError();
-          }
+      for (Task task : tasks) {
+        List<Task> doAfters = index.getDoAfters(task.getElementRef());
+        if (
+            !doAfters.isEmpty()
+                && task.getPage().getGeneratedIds().contains(task.getId())
+        ) {
+          throw new ServletException(
+              new TaskException("Not allowed to reference task by generated id, set an explicit id on the task: " + task)
+          );
         }
-      }
-      CapturePage.traversePagesDepthFirst(
-          servletContext,
-          request,
-          response,
-          SemanticCMS.getInstance(servletContext).getRootBook().getContentRoot(),
-          CaptureLevel.META,
-          (Page page, int depth) -> {
-            try {
-              for (Element element : page.getElements()) {
-                if (element instanceof Task) {
-                  Task pageTask = (Task) element;
-                  for (ElementRef doBeforeRef : pageTask.getDoBefores()) {
-                    Task doBefore = tasksByElementRef.get(doBeforeRef);
-                    if (doBefore != null) {
-                      if (doBefore.getPage().getGeneratedIds().contains(doBefore.getId())) {
-                        throw new TaskException("Not allowed to reference task by generated id, set an explicit id on the task: " + doBefore);
-                      }
-                      List<Task> doAfters = results.get(doBefore);
-                      int doAftersSize = doAfters.size();
-                      if (doAftersSize == 0) {
-                        results.put(doBefore, Collections.singletonList(pageTask));
-                      } else {
-                        if (doAftersSize == 1) {
-                          Task first = doAfters.get(0);
-                          doAfters = new ArrayList<>();
-                          doAfters.add(first);
-                          results.put(doBefore, doAfters);
-                        }
-                        doAfters.add(pageTask);
-                      }
-                    }
-                  }
-                }
-              }
-              return null;
-            } catch (TaskException e) {
-              throw new ServletException(e);
-            }
-          },
-          Page::getChildRefs,
-          childPage -> childPage.getBook() != null,
-          null
-      );
-      // Wrap any with size of 2 or more with unmodifiable, 0 and 1 already are unmodifiable
-      for (Map.Entry<Task, List<Task>> entry : results.entrySet()) {
-        List<Task> doAfters = entry.getValue();
-        if (doAfters.size() > 1) {
-          entry.setValue(Collections.unmodifiableList(doAfters));
+        if (results.put(task, doAfters) != null) {
+          throw new AssertionError();
         }
       }
       // Make entire map unmodifiable
@@ -874,201 +1676,600 @@ public final class TaskUtil {
     return EnumSet.allOf(User.class);
   }
 
-  private static Priority getEffectivePriority(
+  private static final Priority[] priorities = Priority.values();
+
+  private static final String EFFECTIVE_PRIORITIES_CACHE_KEY = TaskUtil.class.getName() + ".getEffectivePriorities";
+
+  /**
+   * The effective priorities of the tasks in a graph as of a given day, computed as needed.
+   * All access synchronized on this object.
+   */
+  private static final class EffectivePriorities {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte STATUS_KNOWN = 1;
+    private static final byte IN_CLOSURE = 2;
+    private static final byte EFFECTIVE_KNOWN = 3;
+
+    private final TaskGraph graph;
+    private final long today;
+
+    /**
+     * The progress of each task, by task ordinal.
+     */
+    private final byte[] states;
+
+    /**
+     * The {@link Priority#ordinal()} of the priority of each task, by task ordinal.
+     * This is the priority of the task itself once {@link #STATUS_KNOWN}, is raised by inheritance while
+     * {@link #IN_CLOSURE}, and is its effective priority once {@link #EFFECTIVE_KNOWN}.
+     */
+    private final byte[] priorities;
+
+    /**
+     * Whether each task passes its effective priority to its "Do Before" tasks, by task ordinal.
+     */
+    private final boolean[] inherited;
+
+    /**
+     * The position of each task in the closure currently being computed, by task ordinal.
+     * Created when first needed.
+     */
+    private int[] positions;
+
+    private EffectivePriorities(TaskGraph graph, long today) {
+      this.graph = graph;
+      this.today = today;
+      int size = graph.size();
+      this.states = new byte[size];
+      this.priorities = new byte[size];
+      this.inherited = new boolean[size];
+    }
+
+    private int[] getPositions() {
+      if (positions == null) {
+        positions = new int[graph.size()];
+      }
+      return positions;
+    }
+  }
+
+  /**
+   * Checks if a task with the given status passes its effective priority to its "Do Before" tasks.
+   */
+  private static boolean isPriorityInherited(StatusResult status) {
+    return
+        !status.isCompletedSchedule()
+            && !status.isReadySchedule()
+            && !status.isFutureSchedule();
+  }
+
+  /**
+   * Resolves the status of a task in the graph, when not already known.
+   */
+  private static void resolveStatus(
       ServletContext servletContext,
       HttpServletRequest request,
       HttpServletResponse response,
       Cache cache,
-      Map<Task, StatusResult> statusCache,
+      Map<ElementRef, StatusResult> statusCache,
       long now,
-      Task task,
-      StatusResult status,
-      Map<Task, List<Task>> doAftersByTask,
-      Map<Task, Priority> effectivePriorities
+      EffectivePriorities effective,
+      int ordinal
   ) throws TaskException, ServletException, IOException {
-    Priority cached = effectivePriorities.get(task);
-    if (cached != null) {
-      return cached;
+    if (effective.states[ordinal] == EffectivePriorities.UNKNOWN) {
+      Task task = effective.graph.getTask(ordinal);
+      StatusResult status = getStatus(servletContext, request, response, task, cache, statusCache, effective.today);
+      effective.priorities[ordinal] = (byte) TaskImpl.getPriorityForStatus(now, task, status).ordinal();
+      effective.inherited[ordinal] = isPriorityInherited(status);
+      effective.states[ordinal] = EffectivePriorities.STATUS_KNOWN;
     }
-    // Find the maximum priority of this task and all that will be done after it
-    Priority effective = TaskImpl.getPriorityForStatus(now, task, status);
-    if (effective != Priority.MAX_PRIORITY) {
-      List<Task> doAfters = doAftersByTask.get(task);
-      if (doAfters != null) {
-        for (Task doAfter : doAfters) {
-          StatusResult doAfterStatus = getStatus(
-              servletContext,
-              request,
-              response,
-              doAfter,
-              cache,
-              statusCache
-          );
-          if (
-              !doAfterStatus.isCompletedSchedule()
-                  && !doAfterStatus.isReadySchedule()
-                  && !doAfterStatus.isFutureSchedule()
-          ) {
-            Priority inherited = getEffectivePriority(
-                servletContext,
-                request,
-                response,
-                cache,
-                statusCache,
-                now,
-                doAfter,
-                doAfterStatus,
-                doAftersByTask,
-                effectivePriorities
-            );
-            if (inherited.compareTo(effective) > 0) {
-              effective = inherited;
-              if (effective == Priority.MAX_PRIORITY) {
-                break;
-              }
-            }
-          }
-        }
+  }
+
+  /**
+   * Computes the effective priority of the given tasks and every task they inherit priority from.  The effective
+   * priority of a task is the maximum priority of the task and of every task that will be done after it and is not
+   * yet completed, ready, or in the future.
+   *
+   * <p>Only the transitive "Do After" closure of the given tasks is visited, stopping at tasks that do not pass on
+   * their priority.  The effective priorities are then computed in a single pass over the closure in reverse
+   * topological order, where each task is visited only after all of its "Do After" tasks.  Results are cached per
+   * request for the same graph and day, so tasks already computed are not visited again.  As priorities only change
+   * by day, each task's priority is computed as of the time it is first needed within the request.</p>
+   *
+   * @throws  TaskException  when a "Do Before" cycle is found
+   */
+  private static EffectivePriorities getEffectivePriorities(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Cache cache,
+      Map<ElementRef, StatusResult> statusCache,
+      long now,
+      long today,
+      TaskGraph graph,
+      Collection<? extends Task> tasks
+  ) throws TaskException, ServletException, IOException {
+    @SuppressWarnings("unchecked")
+    Map<Long, EffectivePriorities> effectivePrioritiesCache = cache.getAttribute(
+        EFFECTIVE_PRIORITIES_CACHE_KEY,
+        Map.class,
+        cache::newMap
+    );
+    EffectivePriorities effective = effectivePrioritiesCache.get(today);
+    if (effective == null || effective.graph != graph) {
+      effective = new EffectivePriorities(graph, today);
+      effectivePrioritiesCache.put(today, effective);
+    }
+    synchronized (effective) {
+      try {
+        computeEffectivePriorities(servletContext, request, response, cache, statusCache, now, effective, tasks);
+      } catch (TaskException | ServletException | IOException | RuntimeException e) {
+        // Partial results are discarded
+        effectivePrioritiesCache.remove(today, effective);
+        throw e;
+      }
+    }
+    return effective;
+  }
+
+  /**
+   * Adds a task to the closure being computed, when not already in it.
+   *
+   * @return  The closure, which is replaced when grown
+   */
+  private static int[] addToClosure(EffectivePriorities effective, int[] closure, int closureSize, int ordinal) {
+    effective.states[ordinal] = EffectivePriorities.IN_CLOSURE;
+    if (closureSize == closure.length) {
+      closure = Arrays.copyOf(closure, closureSize << 1);
+    }
+    closure[closureSize] = ordinal;
+    return closure;
+  }
+
+  private static void computeEffectivePriorities(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Cache cache,
+      Map<ElementRef, StatusResult> statusCache,
+      long now,
+      EffectivePriorities effective,
+      Collection<? extends Task> tasks
+  ) throws TaskException, ServletException, IOException {
+    TaskGraph graph = effective.graph;
+    byte[] states = effective.states;
+    byte[] effectivePriorities = effective.priorities;
+    boolean[] inherited = effective.inherited;
+    int[] doBeforeOffsets = graph.getDoBeforeOffsets();
+    int[] doBeforeTargets = graph.getDoBeforeTargets();
+    int[] doAfterOffsets = graph.getDoAfterOffsets();
+    int[] doAfterTargets = graph.getDoAfterTargets();
+    // Find the closure, in discovery order
+    int[] closure = new int[Math.max(Math.min(tasks.size(), graph.size()), 1)];
+    int closureSize = 0;
+    for (Task task : tasks) {
+      ElementRef elementRef = task.getElementRef();
+      int ordinal = graph.getOrdinal(elementRef);
+      if (ordinal != -1) {
+        resolveStatus(servletContext, request, response, cache, statusCache, now, effective, ordinal);
+        if (states[ordinal] == EffectivePriorities.STATUS_KNOWN) {
+          closure = addToClosure(effective, closure, closureSize++, ordinal);
+        }
+      } else {
+        // Not in the graph: the effective priorities of any "Do After" tasks in the graph are needed
+        for (Task doAfter : graph.getDoAfters(elementRef)) {
+          int doAfterOrdinal = graph.getOrdinal(doAfter.getElementRef());
+          resolveStatus(servletContext, request, response, cache, statusCache, now, effective, doAfterOrdinal);
+          if (inherited[doAfterOrdinal] && states[doAfterOrdinal] == EffectivePriorities.STATUS_KNOWN) {
+            closure = addToClosure(effective, closure, closureSize++, doAfterOrdinal);
+          }
+        }
+      }
+    }
+    if (closureSize == 0) {
+      return;
+    }
+    for (int i = 0; i < closureSize; i++) {
+      int ordinal = closure[i];
+      Task task = graph.getTask(ordinal);
+      for (ElementRef doBeforeRef : task.getDoBefores()) {
+        if (graph.getOrdinal(doBeforeRef) == -1) {
+          throw new AssertionError("Task not found: " + doBeforeRef);
+        }
+      }
+      int start = doAfterOffsets[ordinal];
+      int end = doAfterOffsets[ordinal + 1];
+      if (start != end && task.getPage().getGeneratedIds().contains(task.getId())) {
+        throw new TaskException("Not allowed to reference task by generated id, set an explicit id on the task: " + task);
+      }
+      for (int j = start; j < end; j++) {
+        int doAfter = doAfterTargets[j];
+        resolveStatus(servletContext, request, response, cache, statusCache, now, effective, doAfter);
+        if (inherited[doAfter]) {
+          byte doAfterState = states[doAfter];
+          if (doAfterState == EffectivePriorities.EFFECTIVE_KNOWN) {
+            // Inherit now, since will not be visited
+            if (effectivePriorities[doAfter] > effectivePriorities[ordinal]) {
+              effectivePriorities[ordinal] = effectivePriorities[doAfter];
+            }
+          } else if (doAfterState == EffectivePriorities.STATUS_KNOWN) {
+            closure = addToClosure(effective, closure, closureSize++, doAfter);
+          }
+        }
+      }
+    }
+    // The number of "Do After" tasks in the closure not yet visited, by position in the closure
+    int[] remaining = new int[closureSize];
+    int[] positions = effective.getPositions();
+    for (int i = 0; i < closureSize; i++) {
+      positions[closure[i]] = i;
+    }
+    int[] queue = new int[closureSize];
+    int tail = 0;
+    for (int i = 0; i < closureSize; i++) {
+      int ordinal = closure[i];
+      int count = 0;
+      for (int j = doAfterOffsets[ordinal], end = doAfterOffsets[ordinal + 1]; j < end; j++) {
+        if (states[doAfterTargets[j]] == EffectivePriorities.IN_CLOSURE) {
+          count++;
+        }
+      }
+      remaining[i] = count;
+      if (count == 0) {
+        queue[tail++] = ordinal;
+      }
+    }
+    for (int head = 0; head < tail; head++) {
+      int doAfter = queue[head];
+      byte priority = effectivePriorities[doAfter];
+      boolean inherit = inherited[doAfter];
+      for (int j = doBeforeOffsets[doAfter], end = doBeforeOffsets[doAfter + 1]; j < end; j++) {
+        int doBefore = doBeforeTargets[j];
+        if (states[doBefore] == EffectivePriorities.IN_CLOSURE) {
+          if (inherit && priority > effectivePriorities[doBefore]) {
+            effectivePriorities[doBefore] = priority;
+          }
+          if (--remaining[positions[doBefore]] == 0) {
+            queue[tail++] = doBefore;
+          }
+        }
+      }
+      // The effective priority of doAfter is final
+      states[doAfter] = EffectivePriorities.EFFECTIVE_KNOWN;
+    }
+    if (tail < closureSize) {
+      for (int i = 0; i < closureSize; i++) {
+        if (remaining[i] != 0) {
+          throw new TaskException("doBefore cycle detected: " + graph.getTask(closure[i]));
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the effective priority of a task from the computed effective priorities of its graph.
+   * A task not in the graph inherits from any of its "Do After" tasks in the graph.
+   */
+  private static Priority getEffectivePriority(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Cache cache,
+      Map<ElementRef, StatusResult> statusCache,
+      long now,
+      long today,
+      Task task,
+      EffectivePriorities effectivePriorities
+  ) throws TaskException, ServletException, IOException {
+    TaskGraph graph = effectivePriorities.graph;
+    ElementRef elementRef = task.getElementRef();
+    int ordinal = graph.getOrdinal(elementRef);
+    if (ordinal != -1) {
+      return priorities[effectivePriorities.priorities[ordinal]];
+    }
+    Priority effective = TaskImpl.getPriorityForStatus(
+        now,
+        task,
+        getStatus(servletContext, request, response, task, cache, statusCache, today)
+    );
+    for (Task doAfter : graph.getDoAfters(elementRef)) {
+      int doAfterOrdinal = graph.getOrdinal(doAfter.getElementRef());
+      if (effectivePriorities.inherited[doAfterOrdinal]) {
+        Priority inherited = priorities[effectivePriorities.priorities[doAfterOrdinal]];
+        if (inherited.compareTo(effective) > 0) {
+          effective = inherited;
+        }
       }
     }
-    // Cache result
-    effectivePriorities.put(task, effective);
     return effective;
   }
 
+  public static List<Task> prioritizeTasks(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Collection<? extends Task> tasks,
+      boolean dateFirst
+  ) throws TaskException, ServletException, IOException {
+    return prioritizeTasks(
+        servletContext,
+        request,
+        response,
+        tasks,
+        dateFirst,
+        Clock.systemDefaultZone()
+    );
+  }
+
+  /**
+   * Sorts tasks by priority as of the current time of the given clock.
+   * Use {@link Clock#fixed(java.time.Instant, java.time.ZoneId)} to prioritize as of any specific time.
+   */
+  public static List<Task> prioritizeTasks(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Collection<? extends Task> tasks,
+      boolean dateFirst,
+      Clock clock
+  ) throws TaskException, ServletException, IOException {
+    return prioritizeTasks(
+        servletContext,
+        request,
+        response,
+        tasks,
+        dateFirst,
+        clock,
+        Integer.MAX_VALUE
+    );
+  }
+
+  /**
+   * Gets the highest priority tasks, in the same order as
+   * {@link #prioritizeTasks(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.util.Collection, boolean)}.
+   *
+   * @param  limit  The maximum number of tasks to return
+   */
+  public static List<Task> prioritizeTasks(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Collection<? extends Task> tasks,
+      boolean dateFirst,
+      int limit
+  ) throws TaskException, ServletException, IOException {
+    return prioritizeTasks(
+        servletContext,
+        request,
+        response,
+        tasks,
+        dateFirst,
+        Clock.systemDefaultZone(),
+        limit
+    );
+  }
+
+  /**
+   * Gets the highest priority tasks as of the current time of the given clock, in the same order as
+   * {@link #prioritizeTasks(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.util.Collection, boolean, java.time.Clock)}.
+   * When the limit is less than the number of tasks, only the highest priority tasks are selected, without sorting
+   * the others.
+   *
+   * @param  limit  The maximum number of tasks to return
+   */
   public static List<Task> prioritizeTasks(
       final ServletContext servletContext,
       final HttpServletRequest request,
       final HttpServletResponse response,
       Collection<? extends Task> tasks,
-      final boolean dateFirst
+      final boolean dateFirst,
+      Clock clock,
+      int limit
   ) throws TaskException, ServletException, IOException {
-    final long now = System.currentTimeMillis();
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit < 0: " + limit);
+    }
+    final long now = clock.millis();
+    final long today = EpochDay.today(clock);
     final Cache cache = CacheFilter.getCache(request);
-    final Map<Task, StatusResult> statusCache = getStatusCache(cache);
-    // Priority inheritance
-    List<Task> allTasks = getAllTasks(
+    final Map<ElementRef, StatusResult> statusCache = getStatusCache(cache, today);
+    // Priority inheritance, over the "Do After" closure of the tasks in the application-wide index
+    final TaskIndex index = TaskIndex.getRootIndex(servletContext, request, response);
+    EffectivePriorities effectivePriorities = getEffectivePriorities(
         servletContext,
         request,
         response,
-        CapturePage.capturePage(
-            servletContext,
-            request,
-            response,
-            SemanticCMS.getInstance(servletContext).getRootBook().getContentRoot(),
-            CaptureLevel.META
-        ),
-        null
+        cache,
+        statusCache,
+        now,
+        today,
+        index.getGraph(),
+        tasks
     );
-    // Index tasks by page, id
-    Map<ElementRef, Task> tasksByKey = AoCollections.newHashMap(allTasks.size());
-    for (Task task : allTasks) {
-      if (tasksByKey.put(task.getElementRef(), task) != null) {
-        throw new AssertionError("Duplicate task (page, id)");
+    // Sort keys of each task being prioritized
+    List<Task> taskList = new ArrayList<>(tasks);
+    int size = taskList.size();
+    long[] dates = new long[size];
+    byte[] taskPriorities = new byte[size];
+    for (int i = 0; i < size; i++) {
+      Task task = taskList.get(i);
+      dates[i] = getStatus(servletContext, request, response, task, cache, statusCache, today).getEpochDay();
+      taskPriorities[i] = (byte) getEffectivePriority(
+          servletContext,
+          request,
+          response,
+          cache,
+          statusCache,
+          now,
+          today,
+          task,
+          effectivePriorities
+      ).ordinal();
+    }
+    return Collections.unmodifiableList(sortPrioritized(taskList, dates, taskPriorities, dateFirst, limit));
+  }
+
+  /**
+   * The number of tasks at or above which prioritized tasks are sorted in parallel.
+   */
+  private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+  // The widths of the fields packed into each sort key, from least significant
+  private static final int INDEX_BITS = 28;
+  private static final int DATE_BITS = 31;
+  private static final int UNSCHEDULED_BITS = 1;
+  private static final int PRIORITY_BITS = 3;
+
+  /**
+   * Sorts tasks by their precomputed dates and effective priorities.  Tasks with a date are before those without,
+   * then by earliest date.  Higher priority is before lower.  The original order is retained for equal tasks.
+   *
+   * <p>The keys are packed into a single {@code long} per task, with the position of the task in the least
+   * significant bits, and sorted as primitives.  When a field does not fit its width, an array of positions is sorted
+   * by comparator instead.</p>
+   *
+   * <p>When the limit is less than the number of tasks, only the first tasks are selected through a heap bounded by
+   * the limit, in {@code O(n log k)} time, then sorted.</p>
+   *
+   * @param  dates  The epoch day of the status of each task or {@link EpochDay#NONE} when unscheduled
+   * @param  taskPriorities  The {@link Priority#ordinal()} of the effective priority of each task
+   * @param  limit  The maximum number of tasks to return
+   */
+  private static List<Task> sortPrioritized(List<Task> tasks, long[] dates, byte[] taskPriorities, boolean dateFirst, int limit) {
+    int size = tasks.size();
+    boolean selecting = limit < size;
+    long minDate = Long.MAX_VALUE;
+    long maxDate = Long.MIN_VALUE;
+    for (long date : dates) {
+      if (date != EpochDay.NONE) {
+        if (date < minDate) {
+          minDate = date;
+        }
+        if (date > maxDate) {
+          maxDate = date;
+        }
       }
     }
-    // Invert dependency DAG for fast lookups for priority inheritance
-    final Map<Task, List<Task>> doAftersByTask = AoCollections.newLinkedHashMap(allTasks.size());
-    for (Task task : allTasks) {
-      for (ElementRef doBeforeRef : task.getDoBefores()) {
-        Task doBefore = tasksByKey.get(doBeforeRef);
-        if (doBefore == null) {
-          throw new AssertionError("Task not found: " + doBeforeRef);
+    List<Task> sortedTasks = new ArrayList<>(selecting ? limit : size);
+    if (
+        size <= (1 << INDEX_BITS)
+            && priorities.length <= (1 << PRIORITY_BITS)
+            && (minDate > maxDate || maxDate - minDate < (1L << DATE_BITS))
+    ) {
+      long[] keys = new long[size];
+      for (int i = 0; i < size; i++) {
+        long date = dates[i];
+        long unscheduled = date == EpochDay.NONE ? 1 : 0;
+        long dateOffset = date == EpochDay.NONE ? 0 : (date - minDate);
+        long priority = priorities.length - 1 - taskPriorities[i];
+        long key;
+        if (dateFirst) {
+          key = (((unscheduled << DATE_BITS | dateOffset) << PRIORITY_BITS | priority) << INDEX_BITS) | i;
+        } else {
+          key = (((priority << UNSCHEDULED_BITS | unscheduled) << DATE_BITS | dateOffset) << INDEX_BITS) | i;
         }
-        if (doBefore.getPage().getGeneratedIds().contains(doBefore.getId())) {
-          throw new TaskException("Not allowed to reference task by generated id, set an explicit id on the task: " + doBefore);
+        keys[i] = key;
+      }
+      if (selecting) {
+        keys = selectSmallest(keys, limit);
+        Arrays.sort(keys);
+      } else if (size >= PARALLEL_SORT_THRESHOLD) {
+        Arrays.parallelSort(keys);
+      } else {
+        Arrays.sort(keys);
+      }
+      int indexMask = (1 << INDEX_BITS) - 1;
+      for (long key : keys) {
+        sortedTasks.add(tasks.get((int) key & indexMask));
+      }
+    } else {
+      Integer[] positions = new Integer[size];
+      for (int i = 0; i < size; i++) {
+        positions[i] = i;
+      }
+      Comparator<Integer> byDate = (i1, i2) -> {
+        long date1 = dates[i1];
+        long date2 = dates[i2];
+        // Sort by scheduled or unscheduled
+        int diff = Boolean.compare(date2 != EpochDay.NONE, date1 != EpochDay.NONE);
+        if (diff != 0) {
+          return diff;
         }
-        List<Task> doAfters = doAftersByTask.get(doBefore);
-        if (doAfters == null) {
-          doAfters = new ArrayList<>();
-          doAftersByTask.put(doBefore, doAfters);
+        // Then sort by date (if have date in both statuses)
+        return Long.compare(date1, date2);
+      };
+      Comparator<Integer> byPriority = (i1, i2) -> Integer.compare(taskPriorities[i2], taskPriorities[i1]);
+      Comparator<Integer> comparator = dateFirst ? byDate.thenComparing(byPriority) : byPriority.thenComparing(byDate);
+      if (selecting) {
+        // Retain the original order for equal tasks
+        comparator = comparator.thenComparing(Comparator.naturalOrder());
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, comparator.reversed());
+        for (Integer position : positions) {
+          heap.add(position);
+          if (heap.size() > limit) {
+            heap.remove();
+          }
         }
-        doAfters.add(task);
+        positions = heap.toArray(new Integer[heap.size()]);
+        Arrays.sort(positions, comparator);
+      } else if (size >= PARALLEL_SORT_THRESHOLD) {
+        Arrays.parallelSort(positions, comparator);
+      } else {
+        Arrays.sort(positions, comparator);
+      }
+      for (Integer position : positions) {
+        sortedTasks.add(tasks.get(position));
       }
     }
-    // Caches the effective priorities for tasks being prioritized or any other resolved in processing
-    final Map<Task, Priority> effectivePriorities = new HashMap<>();
-    // Build new list and sort
-    List<Task> sortedTasks = new ArrayList<>(tasks);
-    Collections.sort(
-        sortedTasks,
-        new Comparator<>() {
-          private int dateDiff(Task t1, Task t2) throws TaskException, ServletException, IOException {
-            // Sort by scheduled or unscheduled
-            StatusResult status1 = getStatus(servletContext, request, response, t1, cache, statusCache);
-            StatusResult status2 = getStatus(servletContext, request, response, t2, cache, statusCache);
-            Calendar date1 = status1.getDate();
-            Calendar date2 = status2.getDate();
-            int diff = Boolean.compare(date2 != null, date1 != null);
-            if (diff != 0) {
-              return diff;
-            }
-            // Then sort by date (if have date in both statuses)
-            if (date1 != null && date2 != null) {
-              diff = date1.compareTo(date2);
-              if (diff != 0) {
-                return diff;
-              }
-            }
-            // Dates equal
-            return 0;
-          }
+    return sortedTasks;
+  }
 
-          @Override
-          public int compare(Task t1, Task t2) {
-            try {
-              // Sort by date (when date first)
-              if (dateFirst) {
-                int diff = dateDiff(t1, t2);
-                if (diff != 0) {
-                  return diff;
-                }
-              }
-              // Sort by priority (including priority inheritance)
-              Priority priority1 = getEffectivePriority(
-                  servletContext,
-                  request,
-                  response,
-                  cache,
-                  statusCache,
-                  now,
-                  t1,
-                  getStatus(servletContext, request, response, t1, cache, statusCache),
-                  doAftersByTask,
-                  effectivePriorities
-              );
-              Priority priority2 = getEffectivePriority(
-                  servletContext,
-                  request,
-                  response,
-                  cache,
-                  statusCache,
-                  now,
-                  t2,
-                  getStatus(servletContext, request, response, t2, cache, statusCache),
-                  doAftersByTask,
-                  effectivePriorities
-              );
-              int diff = priority2.compareTo(priority1);
-              if (diff != 0) {
-                return diff;
-              }
-              // Sort by date (when priority first)
-              if (!dateFirst) {
-                diff = dateDiff(t1, t2);
-                if (diff != 0) {
-                  return diff;
-                }
-              }
-              // Equal
-              return 0;
-            } catch (TaskException | ServletException | IOException e) {
-              throw new WrappedException(e);
-            }
+  /**
+   * Selects the smallest distinct keys through a max-heap bounded by the limit.
+   *
+   * @return  The selected keys, in no particular order
+   */
+  private static long[] selectSmallest(long[] keys, int limit) {
+    long[] heap = new long[limit];
+    if (limit == 0) {
+      return heap;
+    }
+    int heapSize = 0;
+    for (long key : keys) {
+      if (heapSize < limit) {
+        // Sift up
+        int i = heapSize++;
+        while (i > 0) {
+          int parent = (i - 1) >>> 1;
+          if (heap[parent] >= key) {
+            break;
           }
+          heap[i] = heap[parent];
+          i = parent;
         }
-    );
-    return Collections.unmodifiableList(sortedTasks);
+        heap[i] = key;
+      } else if (key < heap[0]) {
+        // Replace the largest and sift down
+        int i = 0;
+        while (true) {
+          int child = (i << 1) + 1;
+          if (child >= heapSize) {
+            break;
+          }
+          if (child + 1 < heapSize && heap[child + 1] > heap[child]) {
+            child++;
+          }
+          if (heap[child] <= key) {
+            break;
+          }
+          heap[i] = heap[child];
+          i = child;
+        }
+        heap[i] = key;
+      }
+    }
+    return heap;
   }
 
   private static <V> Map<PageUserKey, V> getPageUserCache(
@@ -1092,6 +2293,12 @@ public final class TaskUtil {
 
   private static final String ALL_TASKS_CACHE_KEY = TaskUtil.class.getName() + ".getAllTasks";
 
+  /**
+   * Gets all tasks assigned to the given user.
+   * This is a lookup in the per-user partitions of the index of the page tree.
+   *
+   * @param  user  When {@code null}, gets all tasks
+   */
   public static List<Task> getAllTasks(
       ServletContext servletContext,
       HttpServletRequest request,
@@ -1103,33 +2310,7 @@ public final class TaskUtil {
     Map<PageUserKey, List<Task>> cache = getPageUserCache(CacheFilter.getCache(request), ALL_TASKS_CACHE_KEY);
     List<Task> results = cache.get(cacheKey);
     if (results == null) {
-      final List<Task> allTasks = new ArrayList<>();
-      CapturePage.traversePagesDepthFirst(
-          servletContext,
-          request,
-          response,
-          rootPage,
-          CaptureLevel.META,
-          (Page page, int depth) -> {
-            for (Element element : page.getElements()) {
-              if (element instanceof Task) {
-                Task task = (Task) element;
-                if (
-                    user == null
-                        || task.getAssignedTo(user) != null
-                ) {
-                  allTasks.add(task);
-                }
-              }
-            }
-            return null;
-          },
-          Page::getChildRefs,
-          // Child not in missing book
-          childPage -> childPage.getBook() != null,
-          null
-      );
-      results = Collections.unmodifiableList(allTasks);
+      results = TaskIndex.getIndex(servletContext, request, response, rootPage).getTasks(user);
       cache.put(cacheKey, results);
     }
     return results;
@@ -1146,11 +2327,13 @@ public final class TaskUtil {
   ) throws ServletException, IOException {
     PageUserKey cacheKey = new PageUserKey(page, user);
     final Cache cache = CacheFilter.getCache(request);
-    final Map<Task, StatusResult> statusCache = getStatusCache(cache);
     Map<PageUserKey, Boolean> hasAssignedTaskCache = getPageUserCache(cache, HAS_ASSIGNED_TASK_CACHE_KEY);
     Boolean result = hasAssignedTaskCache.get(cacheKey);
     if (result == null) {
-      final long now = System.currentTimeMillis();
+      final Clock clock = Clock.systemDefaultZone();
+      final long now = clock.millis();
+      final long today = EpochDay.today(clock);
+      final Map<ElementRef, StatusResult> statusCache = getStatusCache(cache, today);
       result = CapturePage.traversePagesAnyOrder(
           servletContext,
           request,
@@ -1173,7 +2356,8 @@ public final class TaskUtil {
                         response,
                         task,
                         cache,
-                        statusCache
+                        statusCache,
+                        today
                     );
                     Priority priority = null;
                     // getReadyTasks logic
@@ -1182,22 +2366,11 @@ public final class TaskUtil {
                             && status.isReadySchedule()
                     ) {
                       priority = TaskImpl.getPriorityForStatus(now, task, status);
-                      if (priority != Priority.FUTURE) {
-                        if (
-                            status.getDate() != null
-                                && assignedTo != null
-                                && assignedTo.getAfter().getCount() > 0
-                        ) {
-                          // assignedTo "after"
-                          Calendar effectiveDate = UnmodifiableCalendar.unwrapClone(status.getDate());
-                          assignedTo.getAfter().offset(effectiveDate);
-                          if (now >= effectiveDate.getTimeInMillis()) {
-                            return true;
-                          }
-                        } else {
-                          // No time offset
-                          return true;
-                        }
+                      if (
+                          priority != Priority.FUTURE
+                              && isAssignedAfterReached(now, status, assignedTo)
+                      ) {
+                        return true;
                       }
                     }
                     // getBlockedTasks logic
@@ -1209,22 +2382,11 @@ public final class TaskUtil {
                       if (priority == null) {
                         priority = TaskImpl.getPriorityForStatus(now, task, status);
                       }
-                      if (priority != Priority.FUTURE) {
-                        if (
-                            status.getDate() != null
-                                && assignedTo != null
-                                && assignedTo.getAfter().getCount() > 0
-                        ) {
-                          // assignedTo "after"
-                          Calendar effectiveDate = UnmodifiableCalendar.unwrapClone(status.getDate());
-                          assignedTo.getAfter().offset(effectiveDate);
-                          if (now >= effectiveDate.getTimeInMillis()) {
-                            return true;
-                          }
-                        } else {
-                          // No time offset
-                          return true;
-                        }
+                      if (
+                          priority != Priority.FUTURE
+                              && isAssignedAfterReached(now, status, assignedTo)
+                      ) {
+                        return true;
                       }
                     }
                     // getFutureTasks logic
@@ -1263,242 +2425,318 @@ public final class TaskUtil {
 
   private static final String GET_READY_TASKS_CACHE_KEY = TaskUtil.class.getName() + ".getReadyTasks";
 
-  public static List<Task> getReadyTasks(
-      final ServletContext servletContext,
-      final HttpServletRequest request,
-      final HttpServletResponse response,
+  private static final String GET_BLOCKED_TASKS_CACHE_KEY = TaskUtil.class.getName() + ".getBlockedTasks";
+
+  private static final String FUTURE_TASKS_CACHE_KEY = TaskUtil.class.getName() + ".getFutureTasks";
+
+  /**
+   * Checks if the assignment "after" offset, if any, has elapsed for a task.
+   *
+   * @return  {@code true} when there is no date, no assignment, no "after" offset, or the offset date has been reached
+   */
+  private static boolean isAssignedAfterReached(long now, StatusResult status, TaskAssignment assignedTo) {
+    if (
+        status.getEpochDay() != EpochDay.NONE
+            && assignedTo != null
+            && assignedTo.getAfter().getCount() > 0
+    ) {
+      // assignedTo "after"
+      Calendar effectiveDate = UnmodifiableCalendar.unwrapClone(status.getDate());
+      assignedTo.getAfter().offset(effectiveDate);
+      return now >= effectiveDate.getTimeInMillis();
+    } else {
+      // No time offset
+      return true;
+    }
+  }
+
+  /**
+   * Classifies the tasks for the given root page and user, as of the current time of the given clock.
+   * The results are not cached.
+   */
+  private static TaskLists classifyTasks(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Cache cache,
       Page rootPage,
-      final User user
+      User user,
+      Clock clock
+  ) throws IOException, ServletException {
+    long now = clock.millis();
+    long today = EpochDay.today(clock);
+    Map<ElementRef, StatusResult> statusCache = getStatusCache(cache, today);
+    List<Task> readyTasks = new ArrayList<>();
+    List<Task> blockedTasks = new ArrayList<>();
+    List<Task> futureTasks = new ArrayList<>();
+    TaskIndex index = TaskIndex.getIndex(servletContext, request, response, rootPage);
+    List<Task> userTasks = index.getTasks(user);
+    List<TaskAssignment> userAssignments = user == null ? null : index.getAssignments(user);
+    try {
+      for (int i = 0, size = userTasks.size(); i < size; i++) {
+        Task task = userTasks.get(i);
+        TaskAssignment assignedTo = userAssignments == null ? null : userAssignments.get(i);
+        StatusResult status = getStatus(
+            servletContext,
+            request,
+            response,
+            task,
+            cache,
+            statusCache,
+            today
+        );
+        Priority priority = null;
+        // getReadyTasks logic
+        if (
+            !status.isCompletedSchedule()
+                && status.isReadySchedule()
+        ) {
+          priority = TaskImpl.getPriorityForStatus(now, task, status);
+          if (
+              priority != Priority.FUTURE
+                  && isAssignedAfterReached(now, status, assignedTo)
+          ) {
+            readyTasks.add(task);
+          }
+        }
+        // getBlockedTasks logic
+        if (
+            !status.isCompletedSchedule()
+                && !status.isReadySchedule()
+                && !status.isFutureSchedule()
+        ) {
+          if (priority == null) {
+            priority = TaskImpl.getPriorityForStatus(now, task, status);
+          }
+          if (
+              priority != Priority.FUTURE
+                  && isAssignedAfterReached(now, status, assignedTo)
+          ) {
+            blockedTasks.add(task);
+          }
+        }
+        // getFutureTasks logic
+        if (
+            // When assignedTo "after" is non-zero, hide from this user
+            assignedTo == null
+                || assignedTo.getAfter().getCount() == 0
+        ) {
+          boolean future = status.isFutureSchedule();
+          if (!future) {
+            if (priority == null) {
+              priority = TaskImpl.getPriorityForStatus(now, task, status);
+            }
+            future = priority == Priority.FUTURE;
+          }
+          if (future) {
+            futureTasks.add(task);
+          }
+        }
+      }
+    } catch (TaskException e) {
+      throw new ServletException(e);
+    }
+    return new TaskLists(
+        userTasks,
+        Collections.unmodifiableList(readyTasks),
+        Collections.unmodifiableList(blockedTasks),
+        Collections.unmodifiableList(futureTasks)
+    );
+  }
+
+  /**
+   * Gets all the task lists for the given root page and user in a single pass.
+   * The user's tasks are found in the per-user partitions of the index of the page tree,
+   * then all are classified together, and the results are cached for each of
+   * {@link #getAllTasks(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)},
+   * {@link #getReadyTasks(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)},
+   * {@link #getBlockedTasks(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)}, and
+   * {@link #getFutureTasks(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)}.
+   */
+  public static TaskLists getTaskLists(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page rootPage,
+      User user
   ) throws IOException, ServletException {
     PageUserKey cacheKey = new PageUserKey(rootPage, user);
-    final Cache cache = CacheFilter.getCache(request);
-    final Map<Task, StatusResult> statusCache = getStatusCache(cache);
-    Map<PageUserKey, List<Task>> getReadyTasksCache = getPageUserCache(cache, GET_READY_TASKS_CACHE_KEY);
-    List<Task> results = getReadyTasksCache.get(cacheKey);
-    if (results == null) {
-      final long now = System.currentTimeMillis();
-      final List<Task> readyTasks = new ArrayList<>();
-      CapturePage.traversePagesDepthFirst(
+    Cache cache = CacheFilter.getCache(request);
+    Map<PageUserKey, List<Task>> allTasksCache = getPageUserCache(cache, ALL_TASKS_CACHE_KEY);
+    Map<PageUserKey, List<Task>> readyTasksCache = getPageUserCache(cache, GET_READY_TASKS_CACHE_KEY);
+    Map<PageUserKey, List<Task>> blockedTasksCache = getPageUserCache(cache, GET_BLOCKED_TASKS_CACHE_KEY);
+    Map<PageUserKey, List<Task>> futureTasksCache = getPageUserCache(cache, FUTURE_TASKS_CACHE_KEY);
+    List<Task> allTasks = allTasksCache.get(cacheKey);
+    List<Task> readyTasks = readyTasksCache.get(cacheKey);
+    List<Task> blockedTasks = blockedTasksCache.get(cacheKey);
+    List<Task> futureTasks = futureTasksCache.get(cacheKey);
+    if (
+        allTasks == null
+            || readyTasks == null
+            || blockedTasks == null
+            || futureTasks == null
+    ) {
+      TaskLists classified = classifyTasks(
           servletContext,
           request,
           response,
+          cache,
           rootPage,
-          CaptureLevel.META,
-          (Page page, int depth) -> {
-            try {
-              for (Element element : page.getElements()) {
-                if (element instanceof Task) {
-                  Task task = (Task) element;
-                  TaskAssignment assignedTo = user == null ? null : task.getAssignedTo(user);
-                  if (
-                      user == null
-                          || assignedTo != null
-                  ) {
-                    StatusResult status = getStatus(
-                        servletContext,
-                        request,
-                        response,
-                        task,
-                        cache,
-                        statusCache
-                    );
-                    if (
-                        !status.isCompletedSchedule()
-                            && status.isReadySchedule()
-                    ) {
-                      Priority priority = TaskImpl.getPriorityForStatus(now, task, status);
-                      if (priority != Priority.FUTURE) {
-                        if (
-                            status.getDate() != null
-                                && assignedTo != null
-                                && assignedTo.getAfter().getCount() > 0
-                        ) {
-                          // assignedTo "after"
-                          Calendar effectiveDate = UnmodifiableCalendar.unwrapClone(status.getDate());
-                          assignedTo.getAfter().offset(effectiveDate);
-                          if (now >= effectiveDate.getTimeInMillis()) {
-                            readyTasks.add(task);
-                          }
-                        } else {
-                          // No time offset
-                          readyTasks.add(task);
-                        }
-                      }
-                    }
-                  }
-                }
-              }
-              return null;
-            } catch (TaskException e) {
-              throw new ServletException(e);
-            }
-          },
-          Page::getChildRefs,
-          // Child not in missing book
-          childPage -> childPage.getBook() != null,
-          null
+          user,
+          Clock.systemDefaultZone()
       );
-      results = Collections.unmodifiableList(readyTasks);
-      getReadyTasksCache.put(cacheKey, results);
+      // Keep any lists already cached, so repeated calls return the same lists
+      if (allTasks == null) {
+        allTasks = classified.getAllTasks();
+        allTasksCache.put(cacheKey, allTasks);
+      }
+      if (readyTasks == null) {
+        readyTasks = classified.getReadyTasks();
+        readyTasksCache.put(cacheKey, readyTasks);
+      }
+      if (blockedTasks == null) {
+        blockedTasks = classified.getBlockedTasks();
+        blockedTasksCache.put(cacheKey, blockedTasks);
+      }
+      if (futureTasks == null) {
+        futureTasks = classified.getFutureTasks();
+        futureTasksCache.put(cacheKey, futureTasks);
+      }
+    }
+    return new TaskLists(allTasks, readyTasks, blockedTasks, futureTasks);
+  }
+
+  /**
+   * Gets all the task lists for the given root page and user in a single pass, as of the current time of the given
+   * clock.  Use {@link Clock#fixed(java.time.Instant, java.time.ZoneId)} to get the task lists as of any specific time.
+   * Unlike {@link #getTaskLists(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)},
+   * the lists are not cached, but the statuses they are based on are cached for the day of the clock in the default
+   * time zone.
+   */
+  public static TaskLists getTaskLists(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page rootPage,
+      User user,
+      Clock clock
+  ) throws IOException, ServletException {
+    return classifyTasks(
+        servletContext,
+        request,
+        response,
+        CacheFilter.getCache(request),
+        rootPage,
+        user,
+        clock
+    );
+  }
+
+  /**
+   * Gets the tasks that are ready to be worked on.
+   * This classifies all task lists in a single pass, see
+   * {@link #getTaskLists(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)}.
+   */
+  public static List<Task> getReadyTasks(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page rootPage,
+      User user
+  ) throws IOException, ServletException {
+    List<Task> results = TaskUtil.<List<Task>>getPageUserCache(CacheFilter.getCache(request), GET_READY_TASKS_CACHE_KEY)
+        .get(new PageUserKey(rootPage, user));
+    if (results == null) {
+      results = getTaskLists(servletContext, request, response, rootPage, user).getReadyTasks();
     }
     return results;
   }
 
-  private static final String GET_BLOCKED_TASKS_CACHE_KEY = TaskUtil.class.getName() + ".getBlockedTasks";
+  /**
+   * Gets the tasks that are ready to be worked on, as of the current time of the given clock.
+   * This classifies all task lists in a single pass, see
+   * {@link #getTaskLists(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User, java.time.Clock)}.
+   */
+  public static List<Task> getReadyTasks(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page rootPage,
+      User user,
+      Clock clock
+  ) throws IOException, ServletException {
+    return getTaskLists(servletContext, request, response, rootPage, user, clock).getReadyTasks();
+  }
 
+  /**
+   * Gets the tasks that are blocked waiting on "Do Before" tasks.
+   * This classifies all task lists in a single pass, see
+   * {@link #getTaskLists(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)}.
+   */
   public static List<Task> getBlockedTasks(
-      final ServletContext servletContext,
-      final HttpServletRequest request,
-      final HttpServletResponse response,
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
       Page rootPage,
-      final User user
+      User user
   ) throws IOException, ServletException {
-    PageUserKey cacheKey = new PageUserKey(rootPage, user);
-    final Cache cache = CacheFilter.getCache(request);
-    final Map<Task, StatusResult> statusCache = getStatusCache(cache);
-    Map<PageUserKey, List<Task>> getBlockedTasksCache = getPageUserCache(cache, GET_BLOCKED_TASKS_CACHE_KEY);
-    List<Task> results = getBlockedTasksCache.get(cacheKey);
+    List<Task> results = TaskUtil.<List<Task>>getPageUserCache(CacheFilter.getCache(request), GET_BLOCKED_TASKS_CACHE_KEY)
+        .get(new PageUserKey(rootPage, user));
     if (results == null) {
-      final long now = System.currentTimeMillis();
-      final List<Task> blockedTasks = new ArrayList<>();
-      CapturePage.traversePagesDepthFirst(
-          servletContext,
-          request,
-          response,
-          rootPage,
-          CaptureLevel.META,
-          (Page page, int depth) -> {
-            try {
-              for (Element element : page.getElements()) {
-                if (element instanceof Task) {
-                  Task task = (Task) element;
-                  TaskAssignment assignedTo = user == null ? null : task.getAssignedTo(user);
-                  if (
-                      user == null
-                          || assignedTo != null
-                  ) {
-                    StatusResult status = getStatus(
-                        servletContext,
-                        request,
-                        response,
-                        task,
-                        cache,
-                        statusCache
-                    );
-                    if (
-                        !status.isCompletedSchedule()
-                            && !status.isReadySchedule()
-                            && !status.isFutureSchedule()
-                    ) {
-                      Priority priority = TaskImpl.getPriorityForStatus(now, task, status);
-                      if (priority != Priority.FUTURE) {
-                        if (
-                            status.getDate() != null
-                                && assignedTo != null
-                                && assignedTo.getAfter().getCount() > 0
-                        ) {
-                          // assignedTo "after"
-                          Calendar effectiveDate = UnmodifiableCalendar.unwrapClone(status.getDate());
-                          assignedTo.getAfter().offset(effectiveDate);
-                          if (now >= effectiveDate.getTimeInMillis()) {
-                            blockedTasks.add(task);
-                          }
-                        } else {
-                          // No time offset
-                          blockedTasks.add(task);
-                        }
-                      }
-                    }
-                  }
-                }
-              }
-              return null;
-            } catch (TaskException e) {
-              throw new ServletException(e);
-            }
-          },
-          Page::getChildRefs,
-          // Child not in missing book
-          childPage -> childPage.getBook() != null,
-          null
-      );
-      results = Collections.unmodifiableList(blockedTasks);
-      getBlockedTasksCache.put(cacheKey, results);
+      results = getTaskLists(servletContext, request, response, rootPage, user).getBlockedTasks();
     }
     return results;
   }
 
-  private static final String FUTURE_TASKS_CACHE_KEY = TaskUtil.class.getName() + ".getFutureTasks";
+  /**
+   * Gets the tasks that are blocked waiting on "Do Before" tasks, as of the current time of the given clock.
+   * This classifies all task lists in a single pass, see
+   * {@link #getTaskLists(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User, java.time.Clock)}.
+   */
+  public static List<Task> getBlockedTasks(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page rootPage,
+      User user,
+      Clock clock
+  ) throws IOException, ServletException {
+    return getTaskLists(servletContext, request, response, rootPage, user, clock).getBlockedTasks();
+  }
 
+  /**
+   * Gets the tasks that are scheduled in the future.
+   * This classifies all task lists in a single pass, see
+   * {@link #getTaskLists(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User)}.
+   */
   public static List<Task> getFutureTasks(
-      final ServletContext servletContext,
-      final HttpServletRequest request,
-      final HttpServletResponse response,
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
       Page rootPage,
-      final User user
+      User user
   ) throws IOException, ServletException {
-    PageUserKey cacheKey = new PageUserKey(rootPage, user);
-    final Cache cache = CacheFilter.getCache(request);
-    final Map<Task, StatusResult> statusCache = getStatusCache(cache);
-    Map<PageUserKey, List<Task>> futureTasksCache = getPageUserCache(cache, FUTURE_TASKS_CACHE_KEY);
-    List<Task> results = futureTasksCache.get(cacheKey);
+    List<Task> results = TaskUtil.<List<Task>>getPageUserCache(CacheFilter.getCache(request), FUTURE_TASKS_CACHE_KEY)
+        .get(new PageUserKey(rootPage, user));
     if (results == null) {
-      final long now = System.currentTimeMillis();
-      final List<Task> futureTasks = new ArrayList<>();
-      CapturePage.traversePagesDepthFirst(
-          servletContext,
-          request,
-          response,
-          rootPage,
-          CaptureLevel.META,
-          (Page page, int depth) -> {
-            try {
-              for (Element element : page.getElements()) {
-                if (element instanceof Task) {
-                  Task task = (Task) element;
-                  TaskAssignment assignedTo = user == null ? null : task.getAssignedTo(user);
-                  if (
-                      (
-                          user == null
-                              || assignedTo != null
-                      ) && (
-                          // When assignedTo "after" is non-zero, hide from this user
-                          assignedTo == null
-                              || assignedTo.getAfter().getCount() == 0
-                      )
-                  ) {
-                    StatusResult status = getStatus(
-                        servletContext,
-                        request,
-                        response,
-                        task,
-                        cache,
-                        statusCache
-                    );
-                    boolean future = status.isFutureSchedule();
-                    if (!future) {
-                      Priority priority = TaskImpl.getPriorityForStatus(now, task, status);
-                      future = priority == Priority.FUTURE;
-                    }
-                    if (future) {
-                      futureTasks.add(task);
-                    }
-                  }
-                }
-              }
-              return null;
-            } catch (TaskException e) {
-              throw new ServletException(e);
-            }
-          },
-          Page::getChildRefs,
-          // Child not in missing book
-          childPage -> childPage.getBook() != null,
-          null
-      );
-      results = Collections.unmodifiableList(futureTasks);
-      futureTasksCache.put(cacheKey, results);
+      results = getTaskLists(servletContext, request, response, rootPage, user).getFutureTasks();
     }
     return results;
   }
+
+  /**
+   * Gets the tasks that are scheduled in the future, as of the current time of the given clock.
+   * This classifies all task lists in a single pass, see
+   * {@link #getTaskLists(javax.servlet.ServletContext, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, com.semanticcms.core.model.Page, com.pragmatickm.task.model.User, java.time.Clock)}.
+   */
+  public static List<Task> getFutureTasks(
+      ServletContext servletContext,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Page rootPage,
+      User user,
+      Clock clock
+  ) throws IOException, ServletException {
+    return getTaskLists(servletContext, request, response, rootPage, user, clock).getFutureTasks();
+  }
 }
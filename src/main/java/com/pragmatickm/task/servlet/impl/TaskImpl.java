@@ -1,6 +1,6 @@
 /*
  * pragmatickm-task-servlet - Tasks nested within SemanticCMS pages and elements in a Servlet environment.
- * Copyright (C) 2013, 2014, 2015, 2016, 2017, 2019, 2020, 2021, 2022, 2023, 2025  AO Industries, Inc.
+ * Copyright (C) 2013, 2014, 2015, 2016, 2017, 2019, 2020, 2021, 2022, 2023, 2025, 2026  AO Industries, Inc.
  *     support@aoindustries.com
  *     7262 Bull Pen Cir
  *     Mobile, AL 36695
@@ -326,6 +326,14 @@ public final class TaskImpl {
     return new PageRef(pageRef.getBook(), xmlFilePath);
   }
 
+  /**
+   * Checks if the given file name is named as a task log XML file, as created by
+   * {@link #getTaskLogXmlFile(com.semanticcms.core.model.PageRef, java.lang.String)}.
+   */
+  public static boolean isTaskLogXmlFile(String fileName) {
+    return fileName.contains(TASKLOG_MID) && fileName.endsWith(TASKLOG_EXTENSION);
+  }
+
   public static Priority getPriorityForStatus(long now, Task task, StatusResult status) {
     if (status.getDate() != null) {
       return task.getPriority(status.getDate(), now);